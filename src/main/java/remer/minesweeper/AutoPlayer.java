@@ -0,0 +1,35 @@
+package remer.minesweeper;
+
+// something that can play a game on its own, one move at a time
+public interface AutoPlayer
+{
+    // make one move in a game that isn't over yet
+    void move(MinesweeperModel model);
+
+    // make one move in each game that isn't over yet
+    // players that can look at many boards at once should override this
+    default void move(MinesweeperModel[] models)
+    {
+        for (MinesweeperModel model : models)
+        {
+            if (!model.isGameOver())
+            {
+                move(model);
+            }
+        }
+    }
+
+    // play a game until it ends and return how many moves that took
+    // a player that stops making progress loses, so a game gets at most two moves per cell
+    default int play(MinesweeperModel model)
+    {
+        int maxMoves = model.getRows() * model.getCols() * 2;
+        int moves = 0;
+        while (moves < maxMoves && !model.isGameOver())
+        {
+            move(model);
+            moves++;
+        }
+        return moves;
+    }
+}
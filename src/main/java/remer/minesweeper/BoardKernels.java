@@ -0,0 +1,48 @@
+package remer.minesweeper;
+
+// whole-board stencils and maps over flat boards (index row * cols + col)
+public interface BoardKernels
+{
+    // set to true to use the SIMD version when the JVM has jdk.incubator.vector
+    String VECTOR_PROPERTY = "minesweeper.vector";
+
+    // bombs holds 1 for a bomb and 0 otherwise, counts gets the number of bombs around each cell
+    void countAdjacent(byte[] bombs, int rows, int cols, byte[] counts);
+
+    // the neural network input for each cell, see MinesweeperModel.toInput
+    void encodeInput(Cell[] cells, double[] input);
+
+    // the kernels to use in this JVM
+    static BoardKernels get()
+    {
+        return Holder.INSTANCE;
+    }
+
+    // picked once, the first time anyone asks
+    final class Holder
+    {
+        private static final BoardKernels INSTANCE = load();
+
+        private Holder()
+        {
+        }
+
+        private static BoardKernels load()
+        {
+            if (Boolean.getBoolean(VECTOR_PROPERTY)
+                    && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+            {
+                // loaded by name so nothing touches the vector classes unless the module is there
+                try
+                {
+                    return (BoardKernels) Class.forName("remer.minesweeper.VectorBoardKernels")
+                            .getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e)
+                {
+                    System.err.println("vector kernels unavailable, using scalar code: " + e);
+                }
+            }
+            return new ScalarBoardKernels();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package remer.minesweeper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// keeps a bounded stock of ready-made boards for each (rows, cols, bombs) configuration
+// so a new game can swap one in instead of allocating and placing bombs on the spot
+// only the standard difficulties are pooled, any other configuration is built on demand,
+// so the memory held here stays fixed however many board sizes are asked for
+public class BoardPool
+{
+    // beginner, intermediate and expert as rows, cols, bombs
+    private static final int[][] POOLED = {{9, 9, 10}, {16, 16, 40}, {16, 30, 99}};
+
+    private final int capacity;
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final ExecutorService refiller;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // constructor
+    public BoardPool(int capacity)
+    {
+        this.capacity = capacity;
+
+        // a single daemon thread does all the refilling so it never keeps the JVM alive
+        this.refiller = Executors.newSingleThreadExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "board-pool-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the slots are all made up front, the map is only read after this
+        for (int[] pooled : POOLED)
+        {
+            slots.put(key(pooled[0], pooled[1], pooled[2]), new Slot());
+        }
+    }
+
+    // the boards waiting for one configuration
+    private static class Slot
+    {
+        private final ConcurrentLinkedQueue<Cell[]> boards = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+    }
+
+    private static String key(int rows, int cols, int numBombs)
+    {
+        return rows + "x" + cols + "/" + numBombs;
+    }
+
+    // the slot for a configuration, or null if it isn't pooled
+    private Slot slot(int rows, int cols, int numBombs)
+    {
+        return slots.get(key(rows, cols, numBombs));
+    }
+
+    // start filling the pool for a configuration before anyone asks for it
+    public void prefill(int rows, int cols, int numBombs)
+    {
+        Slot slot = slot(rows, cols, numBombs);
+        if (slot != null)
+        {
+            scheduleRefill(slot, rows, cols, numBombs);
+        }
+    }
+
+    // take a ready board, or null if none is available yet or the configuration isn't pooled
+    // boards have no safe cell reserved, the model moves a bomb away from the first click instead
+    public Cell[] take(int rows, int cols, int numBombs)
+    {
+        Slot slot = slot(rows, cols, numBombs);
+        if (slot == null)
+        {
+            return null;
+        }
+
+        Cell[] board = slot.boards.poll();
+
+        if (board != null)
+        {
+            slot.size.decrementAndGet();
+            hits.incrementAndGet();
+        } else
+        {
+            misses.incrementAndGet();
+        }
+
+        scheduleRefill(slot, rows, cols, numBombs);
+        return board;
+    }
+
+    private void scheduleRefill(Slot slot, int rows, int cols, int numBombs)
+    {
+        // only one refill task per configuration at a time, and none once the pool is shut down
+        if (slot.size.get() >= capacity || refiller.isShutdown() || !slot.refilling.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        refiller.execute(() -> refill(slot, rows, cols, numBombs));
+    }
+
+    private void refill(Slot slot, int rows, int cols, int numBombs)
+    {
+        Random random = new Random();
+        Neighbours neighbours = Neighbours.of(rows, cols);
+
+        try
+        {
+            while (slot.size.get() < capacity)
+            {
+                Cell[] board = new Cell[rows * cols];
+                MinesweeperModel.fillBoard(board);
+                MinesweeperModel.placeBombs(board, numBombs, random, -1);
+                MinesweeperModel.calculateAdjacentBombs(board, neighbours);
+
+                slot.boards.offer(board);
+                slot.size.incrementAndGet();
+            }
+        } finally
+        {
+            slot.refilling.set(false);
+        }
+
+        // a take between the loop's last check and clearing the flag saw this refill still running
+        // and didn't start another, so its board would never be replaced
+        if (slot.size.get() < capacity)
+        {
+            scheduleRefill(slot, rows, cols, numBombs);
+        }
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public double getHitRate()
+    {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    // rough heap size of the pool when every slot is full, a Cell object and a reference per cell
+    public long estimateBytes()
+    {
+        long bytes = 0;
+        for (int[] pooled : POOLED)
+        {
+            bytes += capacity * (16 + (long) pooled[0] * pooled[1] * (24 + 4));
+        }
+        return bytes;
+    }
+
+    // number of boards currently waiting for a configuration
+    public int available(int rows, int cols, int numBombs)
+    {
+        Slot slot = slot(rows, cols, numBombs);
+        return slot == null ? 0 : slot.size.get();
+    }
+
+    // stop the background refill thread
+    public void shutdown()
+    {
+        refiller.shutdownNow();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("BoardPool[hits=%d, misses=%d, hitRate=%.2f]", getHits(), getMisses(), getHitRate());
+    }
+}
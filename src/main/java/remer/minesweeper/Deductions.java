@@ -0,0 +1,100 @@
+package remer.minesweeper;
+
+// what can be worked out from the 3x3 window around a revealed number
+// working it out only means looking at 8 neighbours, which is cheaper than hashing the window
+// and looking it up, so results are not cached per window
+//
+// a result packs three things:
+//   bits 0-8   window positions (see Neighbours) of hidden cells that must be bombs
+//   bits 16-24 window positions of hidden cells that must be safe
+//   bits 32-62 the chance that any one hidden neighbour is a bomb, as float bits
+public final class Deductions
+{
+    private static final TranspositionTable CACHE = new TranspositionTable(1 << 16);
+
+    private Deductions()
+    {
+    }
+
+    // a shared table for results keyed by MinesweeperModel.getBoardHash, for solvers that search;
+    // autoFlag and autoReveal don't use it, scanning the board measured faster than looking it up
+    public static TranspositionTable cache()
+    {
+        return CACHE;
+    }
+
+    // the result for the window around a revealed number cell
+    public static long deduce(Cell[] cells, Neighbours neighbours, int index)
+    {
+        int hiddenCount = 0;
+        int flaggedCount = 0;
+        int hidden = 0;
+
+        if (neighbours.isInterior(index))
+        {
+            // all 8 neighbours are there, at fixed distances and in window order skipping the centre
+            int[] offsets = neighbours.getOffsets();
+            for (int k = 0; k < 8; k++)
+            {
+                Cell neighbor = cells[index + offsets[k]];
+
+                if (neighbor.isFlagged())
+                {
+                    flaggedCount++;
+                } else if (!neighbor.isRevealed())
+                {
+                    hiddenCount++;
+                    hidden |= 1 << (k < 4 ? k : k + 1);
+                }
+            }
+        } else
+        {
+            int[] first = neighbours.getFirst();
+            int[] list = neighbours.getList();
+            byte[] directions = neighbours.getDirections();
+
+            for (int k = first[index], end = first[index + 1]; k < end; k++)
+            {
+                Cell neighbor = cells[list[k]];
+
+                if (neighbor.isFlagged())
+                {
+                    flaggedCount++;
+                } else if (!neighbor.isRevealed())
+                {
+                    hiddenCount++;
+                    hidden |= 1 << directions[k];
+                }
+            }
+        }
+
+        int number = cells[index].getAdjacentBombs();
+
+        // if flagged + hidden == number on cell, all hidden neighbors must be bombs
+        int bombs = flaggedCount + hiddenCount == number ? hidden : 0;
+
+        // if flagged count equals the number on the cell, all hidden neighbors are safe
+        int safe = flaggedCount == number ? hidden : 0;
+
+        // chance that one hidden neighbor is a bomb, if the flags so far are right
+        float chance = hiddenCount == 0 ? 0f : (number - flaggedCount) / (float) hiddenCount;
+        chance = Math.max(0f, Math.min(1f, chance));
+
+        return bombs | ((long) safe << 16) | ((long) Float.floatToIntBits(chance) << 32);
+    }
+
+    public static int bombMask(long result)
+    {
+        return (int) (result & 0x1FF);
+    }
+
+    public static int safeMask(long result)
+    {
+        return (int) ((result >>> 16) & 0x1FF);
+    }
+
+    public static float bombChance(long result)
+    {
+        return Float.intBitsToFloat((int) (result >>> 32));
+    }
+}
@@ -0,0 +1,509 @@
+package remer.minesweeper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+// headless server hosting many games over local TCP
+// one selector thread runs every connection, each command is handled as a short task on that loop
+//
+// the protocol is one ASCII line per request and per response:
+//   NEW <rows> <cols> <bombs>   -> OK <id>
+//   OPEN <id> <row> <col>       -> DIFF <state> <count> <row>,<col>,<value> ...
+//   FLAG <id> <row> <col>       -> DIFF <state> <count> <row>,<col>,<value> ...
+//   BATCH <id> <O|F> <row> <col> [<O|F> <row> <col> ...]
+//                               -> DIFF for all the moves together, each changed cell once
+//   BOARD <id>                  -> BOARD <state> <rows> <cols> <values>
+//   END <id>                    -> OK <id>
+//   STATS                       -> STATS <games> <resident> <hibernated> <evictions> <restores> <cache hit rate>
+// anything wrong is answered with ERR <message>, and a line longer than MAX_LINE with ERR line too long
+// a game belongs to the connection that made it: other connections can't see it,
+// one connection can have MAX_GAMES games at once, and they end when it closes
+// state is P (playing), W (won) or L (lost)
+// a value is - (hidden), F (flag), * (bomb) or the number of adjacent bombs
+public class GameServer
+{
+    public static final int DEFAULT_PORT = 7878;
+
+    private static final int MAX_SIZE = 256;
+    private static final int MAX_LINE = 8192;
+    private static final int MAX_GAMES = 64;
+
+    // a client that keeps sending without reading stops being read once this much is waiting for it
+    private static final int MAX_PENDING = 1 << 16;
+
+    private final int port;
+    private final GameSessions sessions;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    // constructor
+    public GameServer(int port)
+    {
+        this(port, GameSessions.DEFAULT_MEMORY_BUDGET);
+    }
+
+    // constructor with the heap budget in bytes for resident games, colder games go to disk
+    public GameServer(int port, long memoryBudget)
+    {
+        this.port = port;
+        this.sessions = new GameSessions(new BoardPool(16), memoryBudget);
+    }
+
+    // per connection state kept on the selection key
+    private static class Connection
+    {
+        private final ByteBuffer in = ByteBuffer.allocate(4096);
+        private final StringBuilder line = new StringBuilder();
+        private boolean lineTooLong;
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private int pending;
+        private final Set<Long> games = new HashSet<>();
+    }
+
+    // bind to localhost and run the event loop on its own thread
+    public void start() throws IOException
+    {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+
+        Thread loop = new Thread(this::runLoop, "game-server");
+        loop.start();
+    }
+
+    // the loop closes every connection and the sessions, and with them the board pool, on its way out
+    public void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    public int getPort()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void runLoop()
+    {
+        try
+        {
+            while (running)
+            {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    try
+                    {
+                        if (!key.isValid())
+                        {
+                            continue;
+                        }
+                        if (key.isAcceptable())
+                        {
+                            accept();
+                        }
+                        if (key.isValid() && key.isReadable())
+                        {
+                            read(key);
+                        }
+                        if (key.isValid() && key.isWritable())
+                        {
+                            write(key);
+                        }
+                    } catch (IOException e)
+                    {
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e)
+        {
+            System.err.println("game server stopped: " + e.getMessage());
+        } finally
+        {
+            closeAll();
+            sessions.close();
+        }
+    }
+
+    private void accept() throws IOException
+    {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+        {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) throws IOException
+    {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        int read = channel.read(connection.in);
+        if (read < 0)
+        {
+            close(key);
+            return;
+        }
+
+        handleLines(connection);
+        write(key);
+    }
+
+    // run the complete lines waiting in the input buffer,
+    // leaving the rest there if too many replies are already waiting to be sent
+    private void handleLines(Connection connection)
+    {
+        connection.in.flip();
+        while (connection.in.hasRemaining() && connection.pending < MAX_PENDING)
+        {
+            char c = (char) connection.in.get();
+
+            if (c == '\n')
+            {
+                // a cut off line could still parse as a different command, so it isn't run at all
+                String response = connection.lineTooLong
+                        ? "ERR line too long"
+                        : handle(connection.games, connection.line.toString().trim());
+                connection.line.setLength(0);
+                connection.lineTooLong = false;
+
+                ByteBuffer buffer = ByteBuffer.wrap((response + "\n").getBytes(StandardCharsets.US_ASCII));
+                connection.out.add(buffer);
+                connection.pending += buffer.remaining();
+            } else if (connection.line.length() < MAX_LINE)
+            {
+                connection.line.append(c);
+            } else
+            {
+                connection.lineTooLong = true;
+            }
+        }
+        connection.in.compact();
+    }
+
+    private void write(SelectionKey key) throws IOException
+    {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        while (true)
+        {
+            while (!connection.out.isEmpty())
+            {
+                ByteBuffer buffer = connection.out.peek();
+                channel.write(buffer);
+
+                // the socket is full, stop reading until the client takes what is waiting
+                if (buffer.hasRemaining())
+                {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                connection.out.poll();
+                connection.pending -= buffer.limit();
+            }
+
+            // everything is sent, run any lines that were held back meanwhile
+            if (connection.in.position() == 0)
+            {
+                break;
+            }
+            handleLines(connection);
+            if (connection.out.isEmpty())
+            {
+                break;
+            }
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    // a connection's games end with it, nobody else can reach them
+    private void close(SelectionKey key)
+    {
+        if (key.attachment() instanceof Connection connection)
+        {
+            for (long id : connection.games)
+            {
+                sessions.remove(id);
+            }
+            connection.games.clear();
+        }
+        key.cancel();
+        try
+        {
+            key.channel().close();
+        } catch (IOException e)
+        {
+            // already closed
+        }
+    }
+
+    private void closeAll()
+    {
+        for (SelectionKey key : selector.keys())
+        {
+            close(key);
+        }
+        try
+        {
+            selector.close();
+        } catch (IOException e)
+        {
+            // nothing left to release
+        }
+    }
+
+    // run one command line for the connection owning the given games and build the response line
+    String handle(Set<Long> games, String line)
+    {
+        String[] parts = line.split(" +");
+
+        try
+        {
+            switch (parts[0].toUpperCase())
+            {
+                case "NEW":
+                    return newGame(games, parts);
+                case "OPEN":
+                    return move(games, parts, true);
+                case "FLAG":
+                    return move(games, parts, false);
+                case "BATCH":
+                    return batch(games, parts);
+                case "BOARD":
+                    return board(games, parts);
+                case "END":
+                    return end(games, parts);
+                case "STATS":
+                    return stats();
+                default:
+                    return "ERR unknown command";
+            }
+        } catch (NumberFormatException e)
+        {
+            return "ERR bad number";
+        } catch (IllegalArgumentException | IllegalStateException e)
+        {
+            return "ERR " + e.getMessage();
+        } catch (UncheckedIOException e)
+        {
+            return "ERR storage " + e.getCause().getMessage();
+        }
+    }
+
+    private String newGame(Set<Long> games, String[] parts)
+    {
+        expectArgs(parts, 3);
+        int rows = Integer.parseInt(parts[1]);
+        int cols = Integer.parseInt(parts[2]);
+        int bombs = Integer.parseInt(parts[3]);
+
+        if (rows < 1 || rows > MAX_SIZE || cols < 1 || cols > MAX_SIZE)
+        {
+            throw new IllegalArgumentException("board size must be 1.." + MAX_SIZE);
+        }
+        if (bombs < 0 || bombs >= rows * cols)
+        {
+            throw new IllegalArgumentException("too many bombs");
+        }
+
+        if (games.size() >= MAX_GAMES)
+        {
+            throw new IllegalStateException("too many games on this connection");
+        }
+
+        long id = sessions.create(rows, cols, bombs);
+        games.add(id);
+        return "OK " + id;
+    }
+
+    private String move(Set<Long> games, String[] parts, boolean open)
+    {
+        expectArgs(parts, 3);
+        MinesweeperModel model = session(games, parts[1]);
+        int row = Integer.parseInt(parts[2]);
+        int col = Integer.parseInt(parts[3]);
+        checkCell(model, row, col);
+
+        // only send back the cells this move changed
+        Move move = open ? Move.reveal(row, col) : Move.flag(row, col);
+        return diff(model, model.applyMoves(new Move[] {move}));
+    }
+
+    private String batch(Set<Long> games, String[] parts)
+    {
+        if (parts.length < 5 || (parts.length - 2) % 3 != 0)
+        {
+            throw new IllegalArgumentException("BATCH takes an id and one or more <O|F> <row> <col>");
+        }
+        MinesweeperModel model = session(games, parts[1]);
+
+        Move[] moves = new Move[(parts.length - 2) / 3];
+        for (int i = 0; i < moves.length; i++)
+        {
+            String action = parts[2 + i * 3].toUpperCase();
+            int row = Integer.parseInt(parts[3 + i * 3]);
+            int col = Integer.parseInt(parts[4 + i * 3]);
+            checkCell(model, row, col);
+
+            if (action.equals("O"))
+            {
+                moves[i] = Move.reveal(row, col);
+            } else if (action.equals("F"))
+            {
+                moves[i] = Move.flag(row, col);
+            } else
+            {
+                throw new IllegalArgumentException("move must be O or F");
+            }
+        }
+
+        return diff(model, model.applyMoves(moves));
+    }
+
+    private static String diff(MinesweeperModel model, int[] changed)
+    {
+        int cols = model.getCols();
+        StringBuilder response = new StringBuilder("DIFF ");
+        response.append(state(model)).append(' ').append(changed.length);
+
+        for (int index : changed)
+        {
+            int r = index / cols;
+            int c = index % cols;
+            response.append(' ').append(r).append(',').append(c).append(',').append(value(model.getCell(r, c)));
+        }
+        return response.toString();
+    }
+
+    private String board(Set<Long> games, String[] parts)
+    {
+        expectArgs(parts, 1);
+        MinesweeperModel model = session(games, parts[1]);
+
+        StringBuilder response = new StringBuilder("BOARD ");
+        response.append(state(model)).append(' ');
+        response.append(model.getRows()).append(' ').append(model.getCols()).append(' ');
+
+        for (int row = 0; row < model.getRows(); row++)
+        {
+            for (int col = 0; col < model.getCols(); col++)
+            {
+                response.append(value(model.getCell(row, col)));
+            }
+        }
+        return response.toString();
+    }
+
+    private String end(Set<Long> games, String[] parts)
+    {
+        expectArgs(parts, 1);
+        long id = Long.parseLong(parts[1]);
+
+        if (!games.remove(id) || !sessions.remove(id))
+        {
+            throw new IllegalArgumentException("no such game");
+        }
+        return "OK " + id;
+    }
+
+    private String stats()
+    {
+        return "STATS " + sessions.size() + " " + sessions.getResidentCount() + " " + sessions.getHibernatedCount()
+                + " " + sessions.getEvictions() + " " + sessions.getRestores()
+                + String.format(" %.3f", Deductions.cache().getHitRate());
+    }
+
+    // the game, if it belongs to the connection asking
+    private MinesweeperModel session(Set<Long> games, String id)
+    {
+        long key = Long.parseLong(id);
+        MinesweeperModel model = games.contains(key) ? sessions.get(key) : null;
+        if (model == null)
+        {
+            throw new IllegalArgumentException("no such game");
+        }
+        return model;
+    }
+
+    // a move off the board is an error, not a move that does nothing
+    private static void checkCell(MinesweeperModel model, int row, int col)
+    {
+        if (row < 0 || row >= model.getRows() || col < 0 || col >= model.getCols())
+        {
+            throw new IllegalArgumentException("cell " + row + "," + col + " is off the board");
+        }
+    }
+
+    private static void expectArgs(String[] parts, int count)
+    {
+        if (parts.length != count + 1)
+        {
+            throw new IllegalArgumentException(parts[0].toUpperCase() + " takes " + count + " arguments");
+        }
+    }
+
+    private static char state(MinesweeperModel model)
+    {
+        if (!model.isGameOver())
+        {
+            return 'P';
+        }
+        return model.isGameWon() ? 'W' : 'L';
+    }
+
+    // single character for what a player can see in a cell
+    static char value(Cell cell)
+    {
+        if (cell.isFlagged() && !cell.isRevealed())
+        {
+            return 'F';
+        }
+        if (!cell.isRevealed())
+        {
+            return '-';
+        }
+        if (cell.isBomb())
+        {
+            return '*';
+        }
+        return (char) ('0' + cell.getAdjacentBombs());
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) << 20 : GameSessions.DEFAULT_MEMORY_BUDGET;
+
+        GameServer server = new GameServer(port, budget);
+        server.start();
+        System.out.println("Minesweeper server listening on localhost:" + server.getPort());
+    }
+}
@@ -0,0 +1,332 @@
+package remer.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// all the games hosted by the server, by session id
+// only used from the server's event loop thread so it needs no locking
+//
+// games stay in memory until their estimated size goes over the memory budget,
+// then the least recently used ones are written to disk and dropped from the heap
+// the next move on a hibernated game reads it back in
+// the budget also covers the board pool and the per shape tables the resident games use
+// the number of games, resident or not, is capped too, so hibernating can't fill the disk
+// the board pool is handed over with the sessions, close shuts it down
+public class GameSessions
+{
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    // temporary directories made here and not closed yet, one shutdown hook removes any left at exit
+    private static final Set<Path> TEMPORARY_DIRECTORIES = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean HOOK_ADDED = new AtomicBoolean();
+
+    // access ordered, so iteration starts at the least recently used game
+    private final LinkedHashMap<Long, MinesweeperModel> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Long> hibernated = new HashSet<>();
+
+    // resident games per board shape, a shape's tables are counted while it has any
+    private final Map<Long, Integer> shapes = new HashMap<>();
+    private final BoardPool boardPool;
+    private final long memoryBudget;
+    private final int maxSessions;
+    private final Path directory;
+    private long residentBytes;
+    private long nextId = 1;
+    private long evictions;
+    private long restores;
+
+    // constructor
+    public GameSessions(BoardPool boardPool)
+    {
+        this(boardPool, DEFAULT_MEMORY_BUDGET);
+    }
+
+    // constructor with a memory budget in bytes, hibernated games go to a temporary directory
+    public GameSessions(BoardPool boardPool, long memoryBudget)
+    {
+        this(boardPool, memoryBudget, createDirectory());
+    }
+
+    // constructor with an explicit memory budget in bytes and a directory for hibernated games
+    public GameSessions(BoardPool boardPool, long memoryBudget, Path directory)
+    {
+        this(boardPool, memoryBudget, directory, DEFAULT_MAX_SESSIONS);
+    }
+
+    // constructor with a memory budget, a directory for hibernated games and the most games there can be at once
+    public GameSessions(BoardPool boardPool, long memoryBudget, Path directory, int maxSessions)
+    {
+        this.boardPool = boardPool;
+        this.memoryBudget = memoryBudget;
+        this.maxSessions = maxSessions;
+        this.directory = directory;
+
+        // the pool's boards are always there, so they come off the budget up front
+        this.residentBytes = boardPool == null ? 0 : boardPool.estimateBytes();
+    }
+
+    // a temporary directory, emptied and removed again by close or when the JVM exits
+    private static Path createDirectory()
+    {
+        try
+        {
+            Path directory = Files.createTempDirectory("minesweeper-sessions");
+            if (HOOK_ADDED.compareAndSet(false, true))
+            {
+                Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                {
+                    for (Path left : TEMPORARY_DIRECTORIES)
+                    {
+                        deleteAll(left, true);
+                    }
+                }));
+            }
+            TEMPORARY_DIRECTORIES.add(directory);
+            return directory;
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // start a new game and return its session id
+    public long create(int rows, int cols, int numBombs)
+    {
+        if (size() >= maxSessions)
+        {
+            throw new IllegalStateException("too many games");
+        }
+
+        long id = nextId++;
+        MinesweeperModel model = new MinesweeperModel(rows, cols, numBombs, boardPool);
+
+        try
+        {
+            addResident(id, model);
+        } catch (UncheckedIOException e)
+        {
+            // the client gets an error instead of the id, so the game must not stay behind
+            resident.remove(id);
+            untrack(model);
+            throw e;
+        }
+        return id;
+    }
+
+    // the game for a session, or null if there is none
+    public MinesweeperModel get(long id)
+    {
+        MinesweeperModel model = resident.get(id);
+        if (model != null || !hibernated.contains(id))
+        {
+            return model;
+        }
+
+        model = restore(id);
+        addResident(id, model);
+        return model;
+    }
+
+    public boolean remove(long id)
+    {
+        MinesweeperModel model = resident.remove(id);
+        if (model != null)
+        {
+            untrack(model);
+            return true;
+        }
+
+        if (hibernated.remove(id))
+        {
+            deleteFile(id);
+            return true;
+        }
+        return false;
+    }
+
+    private void addResident(long id, MinesweeperModel model)
+    {
+        resident.put(id, model);
+        track(model);
+
+        // evict the coldest games, but never the one just used
+        Iterator<Map.Entry<Long, MinesweeperModel>> eldest = resident.entrySet().iterator();
+        while (residentBytes > memoryBudget && resident.size() > 1)
+        {
+            Map.Entry<Long, MinesweeperModel> entry = eldest.next();
+            hibernate(entry.getKey(), entry.getValue());
+            eldest.remove();
+            untrack(entry.getValue());
+        }
+    }
+
+    // write a game out, if that fails it stays resident and no half written file is left
+    private void hibernate(long id, MinesweeperModel model)
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file(id)))))
+        {
+            model.writeTo(out);
+        } catch (IOException e)
+        {
+            deleteFile(id);
+            throw new UncheckedIOException(e);
+        }
+
+        hibernated.add(id);
+        evictions++;
+    }
+
+    private MinesweeperModel restore(long id)
+    {
+        MinesweeperModel model;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(id)))))
+        {
+            model = MinesweeperModel.readFrom(in, boardPool);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        hibernated.remove(id);
+        deleteFile(id);
+        restores++;
+        return model;
+    }
+
+    private Path file(long id)
+    {
+        return directory.resolve(id + ".game");
+    }
+
+    private void deleteFile(long id)
+    {
+        try
+        {
+            Files.deleteIfExists(file(id));
+        } catch (IOException e)
+        {
+            // a leftover file is only wasted disk space
+        }
+    }
+
+    // remove every hibernated game's file, and the directory too if it was made here,
+    // then stop the board pool's refill thread
+    public void close()
+    {
+        hibernated.clear();
+        deleteAll(directory, TEMPORARY_DIRECTORIES.remove(directory));
+        if (boardPool != null)
+        {
+            boardPool.shutdown();
+        }
+    }
+
+    private static void deleteAll(Path directory, boolean andDirectory)
+    {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.game"))
+        {
+            for (Path file : files)
+            {
+                Files.deleteIfExists(file);
+            }
+            if (andDirectory)
+            {
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException e)
+        {
+            // a leftover file is only wasted disk space
+        }
+    }
+
+    private void track(MinesweeperModel model)
+    {
+        residentBytes += estimateBytes(model);
+        if (shapes.merge(shape(model), 1, Integer::sum) == 1)
+        {
+            residentBytes += estimateShapeBytes(model);
+        }
+    }
+
+    private void untrack(MinesweeperModel model)
+    {
+        residentBytes -= estimateBytes(model);
+        if (shapes.merge(shape(model), -1, Integer::sum) == 0)
+        {
+            shapes.remove(shape(model));
+            residentBytes -= estimateShapeBytes(model);
+        }
+    }
+
+    private static long shape(MinesweeperModel model)
+    {
+        return ((long) model.getRows() << 32) | model.getCols();
+    }
+
+    // rough heap size of a game: the model, the cell array, one Cell object per cell
+    // and the byte per cell applyMoves keeps
+    private static long estimateBytes(MinesweeperModel model)
+    {
+        long size = (long) model.getRows() * model.getCols();
+        return 128 + 16 + size * 4 + size * 24 + size;
+    }
+
+    // rough heap size of the tables shared by every game of a shape:
+    // the neighbour table (about 45 bytes a cell) and the Zobrist keys (96 bytes a cell)
+    private static long estimateShapeBytes(MinesweeperModel model)
+    {
+        long size = (long) model.getRows() * model.getCols();
+        return 256 + size * (45 + 96);
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    public int size()
+    {
+        return resident.size() + hibernated.size();
+    }
+
+    public int getResidentCount()
+    {
+        return resident.size();
+    }
+
+    public int getHibernatedCount()
+    {
+        return hibernated.size();
+    }
+
+    public long getResidentBytes()
+    {
+        return residentBytes;
+    }
+
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    public long getRestores()
+    {
+        return restores;
+    }
+}
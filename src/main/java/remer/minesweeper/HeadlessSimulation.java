@@ -0,0 +1,59 @@
+package remer.minesweeper;
+
+// plays seeded games with the logic player and never touches Swing or AWT,
+// for the many short runs where JVM startup costs more than the games themselves
+//
+// usage: --headless [games [rows cols bombs [seed]]], defaults to 100 beginner games
+// prints totals for the run, and with -Dminesweeper.timing=true how long after JVM start the first game finished
+public class HeadlessSimulation
+{
+    public static void main(String[] args)
+    {
+        // rows, cols and bombs only come together, anything else is a mistake rather than a default
+        if (args.length != 0 && args.length != 1 && args.length != 4 && args.length != 5)
+        {
+            usage();
+        }
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        int cols = args.length > 1 ? Integer.parseInt(args[2]) : 9;
+        int bombs = args.length > 1 ? Integer.parseInt(args[3]) : 10;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        if (games < 1 || rows < 1 || cols < 1 || bombs < 0 || bombs >= rows * cols)
+        {
+            usage();
+        }
+
+        int wins = 0;
+        long moves = 0;
+        long start = System.nanoTime();
+
+        for (int game = 0; game < games; game++)
+        {
+            AutoPlayer player = new LogicPlayer(seed + game);
+            MinesweeperModel model = new MinesweeperModel(rows, cols, bombs);
+            model.setSeed(seed + game);
+            moves += player.play(model);
+
+            if (model.isGameWon())
+            {
+                wins++;
+            }
+            if (game == 0 && Main.TIMING)
+            {
+                System.out.println("first simulated game after " + Main.millisSinceStart() + " ms");
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games of %dx%d/%d: %d wins, %d moves in %.3f s (%.0f games/s)%n",
+                games, rows, cols, bombs, wins, moves, seconds, games / seconds);
+    }
+
+    private static void usage()
+    {
+        System.err.println("usage: --headless [games [rows cols bombs [seed]]]");
+        System.exit(2);
+    }
+}
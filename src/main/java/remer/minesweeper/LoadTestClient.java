@@ -0,0 +1,138 @@
+package remer.minesweeper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// drives a GameServer with many connections playing random games and reports throughput and latency
+public class LoadTestClient
+{
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final int movesPerConnection;
+
+    // constructor
+    public LoadTestClient(String host, int port, int connections, int movesPerConnection)
+    {
+        this.host = host;
+        this.port = port;
+        this.connections = connections;
+        this.movesPerConnection = movesPerConnection;
+    }
+
+    public void run() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        List<Future<long[]>> results = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++)
+        {
+            final long seed = i;
+            results.add(pool.submit(() -> play(seed)));
+        }
+
+        // gather every move latency from every connection
+        long[] latencies = new long[connections * movesPerConnection];
+        int count = 0;
+        for (Future<long[]> result : results)
+        {
+            long[] connectionLatencies = result.get();
+            System.arraycopy(connectionLatencies, 0, latencies, count, connectionLatencies.length);
+            count += connectionLatencies.length;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        Arrays.sort(latencies, 0, count);
+        System.out.printf("connections: %d, moves: %d, time: %.2f s%n", connections, count, elapsed / 1e9);
+        System.out.printf("throughput: %.0f moves/s%n", count / (elapsed / 1e9));
+        System.out.printf("latency p50: %.1f us, p99: %.1f us%n",
+                percentile(latencies, count, 0.50) / 1e3, percentile(latencies, count, 0.99) / 1e3);
+    }
+
+    // play random 16x16 games over one connection and return the latency of each move
+    private long[] play(long seed) throws IOException
+    {
+        Random random = new Random(seed);
+        long[] latencies = new long[movesPerConnection];
+
+        try (Socket socket = new Socket(host, port))
+        {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), false);
+
+            String id = request(in, out, "NEW 16 16 40").substring(3);
+
+            for (int move = 0; move < movesPerConnection; move++)
+            {
+                String command = (random.nextInt(8) == 0 ? "FLAG " : "OPEN ")
+                        + id + " " + random.nextInt(16) + " " + random.nextInt(16);
+
+                long before = System.nanoTime();
+                String response = request(in, out, command);
+                latencies[move] = System.nanoTime() - before;
+
+                // start over once the game has ended
+                if (!response.startsWith("DIFF P"))
+                {
+                    request(in, out, "END " + id);
+                    id = request(in, out, "NEW 16 16 40").substring(3);
+                }
+            }
+            request(in, out, "END " + id);
+        }
+        return latencies;
+    }
+
+    private static String request(BufferedReader in, PrintWriter out, String command) throws IOException
+    {
+        out.print(command);
+        out.print('\n');
+        out.flush();
+
+        String response = in.readLine();
+        if (response == null || response.startsWith("ERR"))
+        {
+            throw new IOException(command + " failed: " + response);
+        }
+        return response;
+    }
+
+    private static long percentile(long[] sorted, int count, double fraction)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+        return sorted[Math.min(count - 1, (int) (fraction * count))];
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int moves = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        new LoadTestClient(host, port, connections, moves).run();
+    }
+}
@@ -0,0 +1,120 @@
+package remer.minesweeper;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// plays with autoFlag and autoReveal, and when neither finds anything
+// opens the hidden cell that looks least likely to be a bomb
+public class LogicPlayer implements AutoPlayer
+{
+    private final Random random;
+
+    // constructor
+    public LogicPlayer()
+    {
+        this(new Random());
+    }
+
+    // constructor with a fixed seed so guesses are repeatable
+    public LogicPlayer(long seed)
+    {
+        this(new Random(seed));
+    }
+
+    private LogicPlayer(Random random)
+    {
+        this.random = random;
+    }
+
+    @Override
+    public void move(MinesweeperModel model)
+    {
+        // nothing visible yet, start in the middle
+        if (model.getBoardHash() == 0)
+        {
+            model.revealCell(model.getRows() / 2, model.getCols() / 2);
+            return;
+        }
+
+        long before = model.getBoardHash();
+        model.autoFlag();
+        if (model.getBoardHash() != before)
+        {
+            return;
+        }
+
+        model.autoReveal();
+        if (model.getBoardHash() != before)
+        {
+            return;
+        }
+
+        guess(model);
+    }
+
+    private void guess(MinesweeperModel model)
+    {
+        int size = model.getRows() * model.getCols();
+        int[] first = model.getNeighbours().getFirst();
+        int[] list = model.getNeighbours().getList();
+
+        // the highest bomb chance any revealed neighbour gives each hidden cell, or -1 if none touches it
+        float[] chance = new float[size];
+        Arrays.fill(chance, -1f);
+        int hidden = 0;
+        int flags = 0;
+
+        for (int index = 0; index < size; index++)
+        {
+            Cell cell = model.getCell(index);
+
+            if (cell.isFlagged())
+            {
+                flags++;
+            } else if (!cell.isRevealed())
+            {
+                hidden++;
+            } else if (!cell.isBomb() && cell.getAdjacentBombs() > 0)
+            {
+                float local = Deductions.bombChance(model.analyze(index));
+                for (int k = first[index], end = first[index + 1]; k < end; k++)
+                {
+                    chance[list[k]] = Math.max(chance[list[k]], local);
+                }
+            }
+        }
+
+        // cells away from the numbers get the average chance over the rest of the board
+        float elsewhere = hidden == 0 ? 1f : Math.max(0f, (model.getNumBombs() - flags) / (float) hidden);
+
+        int best = -1;
+        float bestChance = Float.MAX_VALUE;
+        int ties = 0;
+
+        for (int index = 0; index < size; index++)
+        {
+            Cell cell = model.getCell(index);
+            if (cell.isRevealed() || cell.isFlagged())
+            {
+                continue;
+            }
+
+            float value = chance[index] >= 0 ? chance[index] : elsewhere;
+            if (value < bestChance)
+            {
+                best = index;
+                bestChance = value;
+                ties = 1;
+            } else if (value == bestChance && random.nextInt(++ties) == 0)
+            {
+                // pick evenly between equally good cells
+                best = index;
+            }
+        }
+
+        if (best >= 0)
+        {
+            model.revealCell(best / model.getCols(), best % model.getCols());
+        }
+    }
+}
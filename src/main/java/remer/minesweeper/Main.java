@@ -1,10 +1,44 @@
 package remer.minesweeper;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
 public class Main
 {
-    public static void main(String[] args)
+    // -Dminesweeper.timing=true reports how long after JVM start the first game or frame was ready;
+    // off by default, since asking the JVM its uptime loads the management classes (about 35 ms)
+    static final boolean TIMING = Boolean.getBoolean("minesweeper.timing");
+
+    public static void main(String[] args) throws Exception
+    {
+        // --server [port] hosts games over TCP, --load-test [host port connections moves] drives a server
+        if (args.length > 0 && args[0].equals("--server"))
+        {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load-test"))
+        {
+            LoadTestClient.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // --headless [games [rows cols bombs [seed]]] plays simulated games without loading any AWT classes
+        if (args.length > 0 && args[0].equals("--headless"))
+        {
+            System.setProperty("java.awt.headless", "true");
+            HeadlessSimulation.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        MinesweeperView.launch(new MinesweeperController());
+    }
+
+    // milliseconds since the JVM started, not counting the time spent loading the management classes to ask
+    static long millisSinceStart()
     {
-        MinesweeperController controller = new MinesweeperController();
-        new MinesweeperView(controller);
+        long reached = System.nanoTime();
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        return uptime - (System.nanoTime() - reached) / 1_000_000;
     }
-}
\ No newline at end of file
+}
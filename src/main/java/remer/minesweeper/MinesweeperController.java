@@ -1,15 +1,40 @@
 package remer.minesweeper;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class MinesweeperController
 {
     private MinesweeperModel model;
     private MinesweeperView view;
+    private final BoardPool boardPool;
+    private AutoPlayer autoPlayer;
 
     // constructor
     public MinesweeperController()
     {
+        // keep a few boards ready so "New Game" doesn't have to build one
+        this.boardPool = new BoardPool(4);
+
         // create a 9x9 board with 10 bombs
-        this.model = new MinesweeperModel(9, 9, 10);
+        this.model = new MinesweeperModel(9, 9, 10, boardPool);
+    }
+
+    // play with a neural network if -Dminesweeper.weights points at a weights file, otherwise use logic
+    private static AutoPlayer createAutoPlayer()
+    {
+        String weights = System.getProperty("minesweeper.weights");
+        if (weights != null)
+        {
+            try
+            {
+                return new NeuralPlayer(NeuralNetwork.load(Path.of(weights)));
+            } catch (IOException e)
+            {
+                System.err.println("could not load " + weights + ", using the logic player: " + e.getMessage());
+            }
+        }
+        return new LogicPlayer();
     }
 
     // set the view
@@ -54,6 +79,30 @@ public class MinesweeperController
         view.updateBoard();
     }
 
+    // apply many moves at once, e.g. from a bot, with one screen update and one game over check
+    public void handleMoves(Move[] moves)
+    {
+        if (model.isGameOver())
+        {
+            return;
+        }
+
+        int[] changed = model.applyMoves(moves);
+        view.updateCells(changed);
+
+        // check game status and show message if needed
+        if (model.isGameOver())
+        {
+            if (model.isGameWon())
+            {
+                view.showWinMessage();
+            } else
+            {
+                view.showLoseMessage();
+            }
+        }
+    }
+
     // start a new game
     public void newGame()
     {
@@ -95,6 +144,47 @@ public class MinesweeperController
         }
     }
 
+    // let the auto player make one move
+    public void autoMove()
+    {
+        if (model.isGameOver())
+        {
+            return;
+        }
+
+        // made on first use, loading a network shouldn't hold up the first frame
+        if (autoPlayer == null)
+        {
+            autoPlayer = createAutoPlayer();
+        }
+
+        autoPlayer.move(model);
+        view.updateBoard();
+
+        // check the game status after the move
+        if (model.isGameOver())
+        {
+            if (model.isGameWon())
+            {
+                view.showWinMessage();
+            } else
+            {
+                view.showLoseMessage();
+            }
+        }
+    }
+
+    public void setAutoPlayer(AutoPlayer autoPlayer)
+    {
+        this.autoPlayer = autoPlayer;
+    }
+
+    // pool hit/miss stats for new games
+    public BoardPool getBoardPool()
+    {
+        return boardPool;
+    }
+
     // get the model so the view can access cell information
     public MinesweeperModel getModel()
     {
@@ -1,104 +1,205 @@
 package remer.minesweeper;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 
 public class MinesweeperModel
 {
-    private Cell[][] board;
+    // the board stored row by row, cell (row, col) is at row * cols + col
+    private Cell[] cells;
     private int rows;
     private int cols;
     private int numBombs;
     private boolean gameOver;
     private boolean gameWon;
     private boolean firstMove;
+    private boolean bombsPlaced;
+    private BoardPool boardPool;
+    private final Neighbours neighbours;
+    private final Zobrist zobrist;
     private final Random random = new Random();
 
+    // cells changed by the applyMoves call in progress, as row * cols + col, only recorded while it runs
+    private int[] changes = new int[16];
+    private int changeCount;
+    private boolean recording;
+
+    // each recorded cell's visible state (see Zobrist) before the batch, -1 for cells not recorded,
+    // made on the first applyMoves so games that never use it don't pay for it
+    private byte[] changedFrom;
+
+    // Zobrist hash of what the player can see, kept up to date on every reveal and flag
+    private long hash;
+
+    // safe cells not revealed yet, the game is won when this reaches 0
+    private int hiddenSafeCells;
+
+    // how many cells have been looked at, by the model's own scans and through getCell
+    private long cellsInspected;
+
+    // hidden cells waiting to be opened by a cascade
+    private int[] pending = new int[16];
+
     // constructor
     public MinesweeperModel(int rows, int cols, int numBombs)
+    {
+        this(rows, cols, numBombs, null);
+    }
+
+    // constructor that takes new boards from a pool when one is ready
+    public MinesweeperModel(int rows, int cols, int numBombs, BoardPool boardPool)
     {
         this.rows = rows;
         this.cols = cols;
         this.numBombs = numBombs;
+        this.boardPool = boardPool;
+        this.neighbours = Neighbours.of(rows, cols);
+        this.zobrist = Zobrist.of(rows, cols);
         this.gameOver = false;
         this.gameWon = false;
         this.firstMove = true;
-        this.board = new Cell[rows][cols];
 
-        initializeBoard();
+        if (boardPool != null)
+        {
+            boardPool.prefill(rows, cols, numBombs);
+        }
+
+        newBoard();
+    }
+
+    // swap in a pooled board if there is one, otherwise build an empty one
+    private void newBoard()
+    {
+        hiddenSafeCells = rows * cols - numBombs;
+        Cell[] pooled = boardPool == null ? null : boardPool.take(rows, cols, numBombs);
+
+        if (pooled != null)
+        {
+            cells = pooled;
+            bombsPlaced = true;
+        } else
+        {
+            cells = new Cell[rows * cols];
+            initializeBoard();
+            bombsPlaced = false;
+        }
     }
 
     // Initialize the board with Mine objects
     private void initializeBoard()
     {
-        // create all Mine objects
-        for (int i = 0; i < rows; i++)
+        fillBoard(cells);
+    }
+
+    // create all Mine objects
+    static void fillBoard(Cell[] cells)
+    {
+        for (int i = 0; i < cells.length; i++)
         {
-            for (int j = 0; j < cols; j++)
-            {
-                board[i][j] = new Cell();
-            }
+            cells[i] = new Cell();
         }
     }
 
-    private void placeBombs(int firstClickRow, int firstClickCol)
+    // pass -1 as the first click to place bombs anywhere
+    static void placeBombs(Cell[] cells, int numBombs, Random random, int firstClick)
     {
         int bombsPlaced = 0;
 
         while (bombsPlaced < numBombs)
         {
-            // generate random row and column
-            int row = random.nextInt(rows);
-            int col = random.nextInt(cols);
+            // generate a random cell
+            int index = random.nextInt(cells.length);
 
             // only place bomb if this cell doesn't already  have one
-            if (!board[row][col].isBomb() && !(row == firstClickRow && col == firstClickCol))
+            if (!cells[index].isBomb() && index != firstClick)
             {
-                board[row][col].setBomb(true);
+                cells[index].setBomb(true);
                 bombsPlaced++;
             }
         }
     }
 
-    private void calculateAdjacentBombs()
+    static void calculateAdjacentBombs(Cell[] cells, Neighbours neighbours)
     {
-        // go through every cell on the board
-        for (int row = 0; row < rows; row++)
+        byte[] bombs = new byte[cells.length];
+        for (int index = 0; index < cells.length; index++)
+        {
+            bombs[index] = (byte) (cells[index].isBomb() ? 1 : 0);
+        }
+
+        // count the whole board in one pass, over bytes this is quicker than
+        // going through the cells even with the extra copy
+        byte[] counts = new byte[cells.length];
+        BoardKernels.get().countAdjacent(bombs, neighbours.getRows(), neighbours.getCols(), counts);
+
+        // only store counts for non-bombs cells
+        for (int index = 0; index < cells.length; index++)
         {
-            for (int col = 0; col < cols; col++)
+            if (bombs[index] == 0)
             {
-                // only calculate for non-bombs cells
-                if (!board[row][col].isBomb())
-                {
-                    int count = countAdjacentBombs(row, col);
-                    board[row][col].setAdjacentBombs(count);
-                }
+                cells[index].setAdjacentBombs(counts[index]);
             }
         }
     }
 
-    private int countAdjacentBombs(int row, int col)
+    // a pooled board was built without knowing the first click,
+    // so if it landed on a bomb move that bomb somewhere else
+    private void moveBombFromFirstClick(int row, int col)
     {
-        int count = 0;
+        int index = row * cols + col;
+        if (!cells[index].isBomb())
+        {
+            return;
+        }
 
-        // check all 8 directions around the cell
-        for (int i = -1; i <= 1; i++)
+        int newIndex;
+        do
         {
-            for (int j = -1; j <= 1; j++)
-            {
-                // skip the cell itself
-                if (i == 0 && j == 0)
-                {
-                    continue;
-                }
+            newIndex = random.nextInt(cells.length);
+        } while (cells[newIndex].isBomb() || newIndex == index);
 
-                int newRow = row + i;
-                int newCol = col + j;
+        cells[index].setBomb(false);
+        cells[newIndex].setBomb(true);
 
-                // check if the adjacent cell is within bounds and is a bomb
-                if (isValidCell(newRow, newCol) && board[newRow][newCol].isBomb())
-                {
-                    count++;
-                }
+        // only the two changed cells and the cells around them need new counts
+        updateCount(index);
+        updateCount(newIndex);
+        updateCountsAround(index);
+        updateCountsAround(newIndex);
+    }
+
+    private void updateCountsAround(int index)
+    {
+        int[] first = neighbours.getFirst();
+        int[] list = neighbours.getList();
+
+        for (int k = first[index], end = first[index + 1]; k < end; k++)
+        {
+            updateCount(list[k]);
+        }
+    }
+
+    private void updateCount(int index)
+    {
+        Cell cell = cells[index];
+        cell.setAdjacentBombs(cell.isBomb() ? 0 : countAdjacentBombs(cells, neighbours, index));
+    }
+
+    private static int countAdjacentBombs(Cell[] cells, Neighbours neighbours, int index)
+    {
+        int[] first = neighbours.getFirst();
+        int[] list = neighbours.getList();
+        int count = 0;
+
+        // check every neighbour of the cell
+        for (int k = first[index], end = first[index + 1]; k < end; k++)
+        {
+            if (cells[list[k]].isBomb())
+            {
+                count++;
             }
         }
         return count;
@@ -112,21 +213,29 @@ public class MinesweeperModel
 
     public void revealCell(int row, int col)
     {
-        // if it's the first move, place the bombs
-        if (firstMove)
+        // check if game is already over or cell is invalid, before a click off the board can use up the first move
+        if (gameOver || !isValidCell(row, col))
         {
-            placeBombs(row, col);
-            calculateAdjacentBombs();
-            firstMove = false;
+            return;
         }
 
-        // check if game is already over or cell is invalid
-        if (gameOver || !isValidCell(row, col))
+        // if it's the first move, place the bombs
+        if (firstMove)
         {
-            return;
+            if (bombsPlaced)
+            {
+                moveBombFromFirstClick(row, col);
+            } else
+            {
+                placeBombs(cells, numBombs, random, row * cols + col);
+                calculateAdjacentBombs(cells, neighbours);
+                bombsPlaced = true;
+            }
+            firstMove = false;
         }
 
-        Cell cell = board[row][col];
+        int index = row * cols + col;
+        Cell cell = cells[index];
 
         // don't reveal if already revealed or flagged
         if (cell.isRevealed() || cell.isFlagged())
@@ -135,7 +244,7 @@ public class MinesweeperModel
         }
 
         // reveal the cell
-        cell.setRevealed(true);
+        reveal(index);
 
         // if it's a bomb, game over
         if (cell.isBomb())
@@ -145,70 +254,89 @@ public class MinesweeperModel
             return;
         }
 
-        // if it's a 0, reveal all adjacent cells recursively
+        // if it's a 0, reveal all adjacent cells
         if (cell.getAdjacentBombs() == 0)
         {
-            revealAdjacentCells(row, col);
+            revealAdjacentCells(index);
         }
 
         // check if player won
         checkWin();
     }
 
-    private void revealAdjacentCells(int row, int col)
+    // open the area around a 0 cell, using a work list instead of recursion
+    // so large empty boards can't overflow the stack
+    private void revealAdjacentCells(int start)
     {
-        // check all 8 directions
-        for (int i = -1; i <= 1; i++)
+        int[] first = neighbours.getFirst();
+        int[] list = neighbours.getList();
+        int[] offsets = neighbours.getOffsets();
+        int size = 0;
+        pending[size++] = start;
+
+        while (size > 0)
         {
-            for (int j = -1; j <= 1; j++)
+            int index = pending[--size];
+            cellsInspected += first[index + 1] - first[index];
+
+            if (neighbours.isInterior(index))
             {
-                // skip the cell itself
-                if (i == 0 && j == 0)
+                for (int offset : offsets)
                 {
-                    continue;
+                    size = cascadeTo(index + offset, size);
                 }
-
-                int newRow = row + i;
-                int newCol = col + j;
-
-                // recursively reveal adjacent cells
-                if (isValidCell(newRow, newCol))
+            } else
+            {
+                for (int k = first[index], end = first[index + 1]; k < end; k++)
                 {
-                    revealCell(newRow, newCol);
+                    size = cascadeTo(list[k], size);
                 }
             }
         }
     }
 
-    private void revealAllBombs()
+    // open one neighbour of a 0 cell, queueing it if it is a 0 too, and return the new queue size
+    private int cascadeTo(int next, int size)
     {
-        for (int i = 0; i < rows; i++)
+        Cell neighbor = cells[next];
+
+        // a 0 cell never has a bomb next to it, so only hidden and unflagged cells matter
+        if (neighbor.isRevealed() || neighbor.isFlagged())
         {
-            for (int j = 0; j < cols; j++)
+            return size;
+        }
+
+        reveal(next);
+
+        if (neighbor.getAdjacentBombs() == 0)
+        {
+            if (size == pending.length)
             {
-                if (board[i][j].isBomb())
-                {
-                    board[i][j].setRevealed(true);
-                }
+                pending = Arrays.copyOf(pending, size * 2);
             }
+            pending[size++] = next;
         }
+        return size;
     }
 
-    private void checkWin()
+    private void revealAllBombs()
     {
-        for (int i = 0; i < rows; i++)
+        for (int index = 0; index < cells.length; index++)
         {
-            for (int j = 0; j < cols; j++)
+            if (cells[index].isBomb())
             {
-                Cell cell = board[i][j];
-
-                // if any non-bomb cells is still hidden, game is not won
-                if (!cell.isBomb() && !cell.isRevealed())
-                {
-                    return;
-                }
+                reveal(index);
             }
         }
+    }
+
+    private void checkWin()
+    {
+        // if any non-bomb cells is still hidden, game is not won
+        if (hiddenSafeCells > 0)
+        {
+            return;
+        }
 
         // all non-bomb cells are revealed, player wins :)
         gameOver = true;
@@ -223,7 +351,8 @@ public class MinesweeperModel
             return;
         }
 
-        Cell cell = board[row][col];
+        int index = row * cols + col;
+        Cell cell = cells[index];
 
         // can't flag an already revealed cell
         if (cell.isRevealed())
@@ -232,7 +361,7 @@ public class MinesweeperModel
         }
 
         // toggle the flag status
-        cell.setFlagged(!cell.isFlagged());
+        setFlagged(index, !cell.isFlagged());
     }
 
     public boolean isGameOver()
@@ -260,209 +389,243 @@ public class MinesweeperModel
         return numBombs;
     }
 
+    // the shared neighbour table for this board's shape
+    public Neighbours getNeighbours()
+    {
+        return neighbours;
+    }
+
     // reset the game
     public void reset()
     {
         gameOver = false;
         gameWon = false;
         firstMove = true;
-        board = new Cell[rows][cols];
-        initializeBoard();
+        hash = 0;
+        newBoard();
     }
 
-    public Cell getCell(int row, int col)
+    private void reveal(int index)
     {
-        if (row >= 0 && row < rows && col >= 0 && col < cols)
+        int before = Zobrist.state(cells[index]);
+        cells[index].setRevealed(true);
+        if (!cells[index].isBomb())
         {
-            return board[row][col];
+            hiddenSafeCells--;
         }
-        return null;
+        changed(index, before);
     }
 
-    // auto-flag cells that we logically determine are bombs
-    public void autoFlag()
+    private void setFlagged(int index, boolean flagged)
     {
-        // iterate through all cells
-        for (int row = 0; row < rows; row++)
+        int before = Zobrist.state(cells[index]);
+        cells[index].setFlagged(flagged);
+        changed(index, before);
+    }
+
+    // swap the cell's old visible state out of the hash and the new one in
+    private void changed(int index, int before)
+    {
+        hash ^= zobrist.key(index, before) ^ zobrist.key(index, Zobrist.state(cells[index]));
+        if (recording)
         {
-            for (int col = 0; col < cols; col++)
-            {
-                Cell cell = board[row][col];
+            recordChange(index, before);
+        }
+    }
 
-                // skip if cell is not revealed, a bomb, flagged, or has 0 adjacent bombs
-                if (!cell.isRevealed() || cell.isBomb() || cell.isFlagged() || cell.getAdjacentBombs() == 0)
-                {
-                    continue;
-                }
+    // Zobrist hash of the visible board, equal boards of the same shape have equal hashes
+    public long getBoardHash()
+    {
+        return hash;
+    }
+
+    // remember a cell the first time the batch changes it
+    private void recordChange(int index, int before)
+    {
+        if (changedFrom[index] >= 0)
+        {
+            return;
+        }
+        changedFrom[index] = (byte) before;
 
-                int hiddenCount = 0;
-                int flaggedCount = 0;
+        if (changeCount == changes.length)
+        {
+            changes = Arrays.copyOf(changes, changes.length * 2);
+        }
+        changes[changeCount++] = index;
+    }
 
-                // check all 8 neighbors
-                for (int i = -1; i <= 1; i++)
+    // apply many moves in one pass and return the cells that look different afterwards,
+    // as row * cols + col, each once, in board order
+    // moves after the game ends are ignored, and reveals of cells an earlier cascade already opened do nothing
+    public int[] applyMoves(Move[] moves)
+    {
+        if (changedFrom == null)
+        {
+            changedFrom = new byte[cells.length];
+            Arrays.fill(changedFrom, (byte) -1);
+        }
+
+        recording = true;
+        try
+        {
+            for (Move move : moves)
+            {
+                if (gameOver)
                 {
-                    for (int j = -1; j <= 1; j++)
-                    {
-                        // skip the cell itself
-                        if (i == 0 && j == 0)
-                        {
-                            continue;
-                        }
-
-                        int newRow = row + i;
-                        int newCol = col + j;
-
-                        if (isValidCell(newRow, newCol))
-                        {
-                            Cell neighbor = board[newRow][newCol];
-
-                            if (neighbor.isFlagged())
-                            {
-                                flaggedCount++;
-                            } else if (!neighbor.isRevealed())
-                            {
-                                hiddenCount++;
-                            }
-                        }
-                    }
+                    break;
                 }
 
-                // check if cell is "satisfied"
-                // if flagged + hidden == number on cell, all hidden neighbors must be bombs
-                if (flaggedCount + hiddenCount == cell.getAdjacentBombs())
+                if (move.action() == Move.Action.REVEAL)
                 {
-                    // flag all hidden neighbors
-                    for (int i = -1; i <= 1; i++)
-                    {
-                        for (int j = -1; j <= 1; j++)
-                        {
-                            // skip the cell itself
-                            if (i == 0 && j == 0)
-                            {
-                                continue;
-                            }
-
-                            int newRow = row + i;
-                            int newCol = col + j;
-
-                            if (isValidCell(newRow, newCol))
-                            {
-                                Cell neighbor = board[newRow][newCol];
-
-                                // flag if its hidden
-                                if (!neighbor.isRevealed() && !neighbor.isFlagged())
-                                {
-                                    neighbor.setFlagged(true);
-                                }
-                            }
-                        }
-                    }
+                    revealCell(move.row(), move.col());
+                } else
+                {
+                    toggleFlag(move.row(), move.col());
                 }
             }
+        } finally
+        {
+            recording = false;
         }
+
+        // a cell flagged and unflagged again in the same batch hasn't changed
+        int kept = 0;
+        for (int i = 0; i < changeCount; i++)
+        {
+            int index = changes[i];
+            if (Zobrist.state(cells[index]) != changedFrom[index])
+            {
+                changes[kept++] = index;
+            }
+            changedFrom[index] = -1;
+        }
+        changeCount = 0;
+
+        int[] changed = Arrays.copyOf(changes, kept);
+        Arrays.sort(changed);
+        return changed;
     }
 
-    // auto-reveal cells that we can logically determine are safe
-    public void autoReveal()
+    public Cell getCell(int row, int col)
     {
-        // iterate through all the cells
-        for (int row = 0; row < rows; row++)
+        if (row >= 0 && row < rows && col >= 0 && col < cols)
         {
-            for (int col = 0; col < cols; col++)
-            {
-                Cell cell = board[row][col];
+            cellsInspected++;
+            return cells[row * cols + col];
+        }
+        return null;
+    }
 
-                // skip if the cell is hidden, a bomb, flagged, or has 0 adjacent bombs
-                if (!cell.isRevealed() || cell.isBomb() || cell.isFlagged() || cell.getAdjacentBombs() == 0)
-                {
-                    continue;
-                }
+    // the cell at a flat index (row * cols + col)
+    public Cell getCell(int index)
+    {
+        cellsInspected++;
+        return cells[index];
+    }
 
-                int flaggedCount = 0;
+    // what the window around a revealed number says about its hidden neighbours, see Deductions
+    public long analyze(int index)
+    {
+        cellsInspected += 1 + neighbours.count(index);
+        return Deductions.deduce(cells, neighbours, index);
+    }
 
-                // check all 8 neighbors
-                for (int i = -1; i <= 1; i++)
-                {
-                    for (int j = -1; j <= 1; j++)
-                    {
-                        // skip the cell itself
-                        if (i == 0 && j == 0)
-                        {
-                            continue;
-                        }
-
-                        int newRow = row + i;
-                        int newCol = col + j;
-
-                        if (isValidCell(newRow, newCol))
-                        {
-                            Cell neighbor = board[newRow][newCol];
-
-                            if (neighbor.isFlagged())
-                            {
-                                flaggedCount++;
-                            }
-                        }
-                    }
-                }
+    public long getCellsInspected()
+    {
+        return cellsInspected;
+    }
+
+    // make bomb placement repeatable, boards taken from a pool were already built and don't use it
+    public void setSeed(long seed)
+    {
+        random.setSeed(seed);
+    }
+
+    // auto-flag cells that we logically determine are bombs
+    public void autoFlag()
+    {
+        cellsInspected += cells.length;
+
+        int[] first = neighbours.getFirst();
+        int[] list = neighbours.getList();
+        byte[] directions = neighbours.getDirections();
+
+        // iterate through all cells
+        for (int index = 0; index < cells.length; index++)
+        {
+            Cell cell = cells[index];
+
+            // skip if cell is not revealed, a bomb, flagged, or has 0 adjacent bombs
+            if (!cell.isRevealed() || cell.isBomb() || cell.isFlagged() || cell.getAdjacentBombs() == 0)
+            {
+                continue;
+            }
+
+            // hidden neighbors that must be bombs, worked out from the cell's window
+            int bombs = Deductions.bombMask(analyze(index));
+            if (bombs == 0)
+            {
+                continue;
+            }
 
-                // if flagged count equals the number on the cell,
-                // all remaining hidden neighbors are safe
-                if (flaggedCount == cell.getAdjacentBombs())
+            // flag all of them
+            for (int k = first[index], end = first[index + 1]; k < end; k++)
+            {
+                if ((bombs & (1 << directions[k])) != 0)
                 {
-                    // reveal all hidden neighbors
-                    for (int i = -1; i <= 1; i++)
-                    {
-                        for (int j = -1; j <= 1; j++)
-                        {
-                            // skip the cell itself
-                            if (i == 0 && j == 0)
-                            {
-                                continue;
-                            }
-
-                            int newRow = row + i;
-                            int newCol = col + j;
-
-                            if (isValidCell(newRow, newCol))
-                            {
-                                // reveal the cell
-                                revealCell(newRow, newCol);
-                            }
-                        }
-                    }
+                    setFlagged(list[k], true);
                 }
             }
         }
     }
 
-    // convert the board to a 1D array of doubles for neural network
-    // size = rows * cols (for 9x9 board = 81 cells/elements)
-    public double[] toInput()
+    // auto-reveal cells that we can logically determine are safe
+    public void autoReveal()
     {
-        double[] input = new double[rows * cols];
-        int index = 0;
+        cellsInspected += cells.length;
 
-        // iterate through the board row by row
-        for (int row = 0; row < rows; row++)
+        int[] first = neighbours.getFirst();
+        int[] list = neighbours.getList();
+        byte[] directions = neighbours.getDirections();
+
+        // iterate through all the cells
+        for (int index = 0; index < cells.length; index++)
         {
-            for (int col = 0; col < cols; col++)
+            Cell cell = cells[index];
+
+            // skip if the cell is hidden, a bomb, flagged, or has 0 adjacent bombs
+            if (!cell.isRevealed() || cell.isBomb() || cell.isFlagged() || cell.getAdjacentBombs() == 0)
             {
-                Cell cell = board[row][col];
+                continue;
+            }
 
-                // if cell is flagged, value is 1.0
-                if (cell.isFlagged())
-                {
-                    input[index] = 1.0;
-                } else if (cell.isRevealed())
+            // hidden neighbors that must be safe, worked out from the cell's window
+            int safe = Deductions.safeMask(analyze(index));
+            if (safe == 0)
+            {
+                continue;
+            }
+
+            // reveal all of them
+            for (int k = first[index], end = first[index + 1]; k < end; k++)
+            {
+                if ((safe & (1 << directions[k])) != 0)
                 {
-                    // if cell is revealed, use chart based on adjacent bombs
-                    int adjacentBombs = cell.getAdjacentBombs();
-                    input[index] = (adjacentBombs + 1) * 0.1;
+                    int next = list[k];
+                    revealCell(next / cols, next % cols);
                 }
-                index++;
             }
         }
+    }
+
+    // convert the board to a 1D array of doubles for neural network
+    // size = rows * cols (for 9x9 board = 81 cells/elements)
+    // flagged cells are 1.0, revealed cells use chart based on adjacent bombs, hidden cells are 0
+    public double[] toInput()
+    {
+        double[] input = new double[cells.length];
+        BoardKernels.get().encodeInput(cells, input);
         return input;
     }
 
@@ -470,22 +633,15 @@ public class MinesweeperModel
     // size = rows * cols (for 9x9 board = 81 cells/elements)
     public double[] toOutput()
     {
-        double[] output = new double[rows * cols];
-        int index = 0;
+        double[] output = new double[cells.length];
 
         // iterate through the board row by row
-        for (int row = 0; row < rows; row++)
+        for (int index = 0; index < cells.length; index++)
         {
-            for (int col = 0; col < cols; col++)
+            // if the cell has a flag, value is 1.0
+            if (cells[index].isFlagged())
             {
-                Cell cell = board[row][col];
-
-                // if the cell has a flag, value is 1.0
-                if (cell.isFlagged())
-                {
-                    output[index] = 1.0;
-                }
-                index++;
+                output[index] = 1.0;
             }
         }
         return output;
@@ -499,16 +655,83 @@ public class MinesweeperModel
         // copy fields
         copy.gameOver = this.gameOver;
         copy.gameWon = this.gameWon;
+        copy.hash = this.hash;
+        copy.hiddenSafeCells = this.hiddenSafeCells;
 
         // deep copy the board - clone each Mine object
-        copy.board = new Cell[rows][cols];
-        for (int row = 0; row < rows; row++)
+        copy.cells = new Cell[cells.length];
+        for (int index = 0; index < cells.length; index++)
         {
-            for (int col = 0; col < cols; col++)
+            copy.cells[index] = this.cells[index].clone();
+        }
+        return copy;
+    }
+
+    // write the game in a compact form: a small header, then one byte per cell
+    // bit 0 bomb, bit 1 revealed, bit 2 flagged, bits 4-7 adjacent bombs
+    public void writeTo(DataOutput out) throws IOException
+    {
+        out.writeInt(rows);
+        out.writeInt(cols);
+        out.writeInt(numBombs);
+        out.writeByte((gameOver ? 1 : 0) | (gameWon ? 2 : 0) | (firstMove ? 4 : 0) | (bombsPlaced ? 8 : 0));
+
+        out.write(pack());
+    }
+
+    // one byte per cell in the writeTo layout
+    private byte[] pack()
+    {
+        byte[] packed = new byte[cells.length];
+        for (int index = 0; index < cells.length; index++)
+        {
+            packed[index] = pack(cells[index]);
+        }
+        return packed;
+    }
+
+    static byte pack(Cell cell)
+    {
+        return (byte) ((cell.isBomb() ? 1 : 0)
+                | (cell.isRevealed() ? 2 : 0)
+                | (cell.isFlagged() ? 4 : 0)
+                | (cell.getAdjacentBombs() << 4));
+    }
+
+    // read a game written by writeTo
+    public static MinesweeperModel readFrom(DataInput in, BoardPool boardPool) throws IOException
+    {
+        int rows = in.readInt();
+        int cols = in.readInt();
+        int numBombs = in.readInt();
+        int state = in.readByte();
+
+        MinesweeperModel model = new MinesweeperModel(rows, cols, numBombs);
+        model.boardPool = boardPool;
+        model.gameOver = (state & 1) != 0;
+        model.gameWon = (state & 2) != 0;
+        model.firstMove = (state & 4) != 0;
+        model.bombsPlaced = (state & 8) != 0;
+
+        byte[] packed = new byte[rows * cols];
+        in.readFully(packed);
+        for (int index = 0; index < packed.length; index++)
+        {
+            int value = packed[index];
+            Cell cell = model.cells[index];
+            cell.setBomb((value & 1) != 0);
+            cell.setRevealed((value & 2) != 0);
+            cell.setFlagged((value & 4) != 0);
+            cell.setAdjacentBombs((value >> 4) & 0xF);
+        }
+        model.hash = model.zobrist.hash(model.cells);
+        for (Cell cell : model.cells)
+        {
+            if (!cell.isBomb() && cell.isRevealed())
             {
-                copy.board[row][col] = this.board[row][col].clone();
+                model.hiddenSafeCells--;
             }
         }
-        return copy;
+        return model;
     }
 }
@@ -4,15 +4,29 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class MinesweeperView extends JFrame
 {
+    // one font and one click listener shared by every button instead of one each
+    private static final Font CELL_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final String CELL_INDEX = "cellIndex";
+
     private MinesweeperController controller;
     private JButton[][] buttons;
     private JPanel boardPanel;
     private JButton resetButton;
     private JButton autoFlagButton;
     private JButton autoRevealButton;
+    private JButton autoMoveButton;
+
+    // build and show the window on the event dispatch thread, so main returns right away
+    public static void launch(MinesweeperController controller)
+    {
+        SwingUtilities.invokeLater(() -> new MinesweeperView(controller));
+    }
 
     // constructor
     public MinesweeperView(MinesweeperController controller)
@@ -25,24 +39,66 @@ public class MinesweeperView extends JFrame
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        // create the board and reset button
-        createBoard();
+        // the frame goes up with an empty board of the right size, the cell buttons are added
+        // just after it has been shown so they don't hold up the first frame
+        createBoardPanel();
         createResetButton();
 
+        addWindowListener(new WindowAdapter()
+        {
+            @Override
+            public void windowOpened(WindowEvent e)
+            {
+                if (Main.TIMING)
+                {
+                    System.out.println("first frame after " + Main.millisSinceStart() + " ms");
+                }
+                SwingUtilities.invokeLater(MinesweeperView.this::createBoard);
+            }
+        });
+
         pack();
         setLocationRelativeTo(null); // center on the screen
         setVisible(true);
     }
 
+    private void createBoardPanel()
+    {
+        MinesweeperModel model = controller.getModel();
+
+        boardPanel = new JPanel();
+        boardPanel.setLayout(new GridLayout(model.getRows(), model.getCols()));
+        boardPanel.setPreferredSize(new Dimension(model.getCols() * 50, model.getRows() * 50));
+        add(boardPanel, BorderLayout.CENTER);
+    }
+
     private void createBoard()
     {
         MinesweeperModel model = controller.getModel();
         int rows = model.getRows();
         int cols = model.getCols();
+        JButton[][] buttons = new JButton[rows][cols];
 
-        boardPanel = new JPanel();
-        boardPanel.setLayout(new GridLayout(rows, cols));
-        buttons = new JButton[rows][cols];
+        // one listener for all cells, each button carries its own index
+        MouseAdapter clickHandler = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent e)
+            {
+                int index = (Integer) ((JButton) e.getSource()).getClientProperty(CELL_INDEX);
+                int row = index / cols;
+                int col = index % cols;
+
+                if (SwingUtilities.isLeftMouseButton(e))
+                {
+                    controller.handleCellClick(row, col);
+                } else if (SwingUtilities.isRightMouseButton(e))
+                {
+                    controller.handleCellRightClick(row, col);
+                }
+            }
+        };
+        Dimension cellSize = new Dimension(50, 50);
 
         // create a button for each cell
         for (int row = 0; row < rows; row++)
@@ -50,103 +106,115 @@ public class MinesweeperView extends JFrame
             for (int col = 0; col < cols; col++)
             {
                 JButton button = new JButton();
-                button.setPreferredSize(new Dimension(50, 50));
-                button.setFont(new Font("Arial", Font.BOLD, 16));
-
-                // store row and col for the click handler
-                final int r = row;
-                final int c = col;
-
-                // add mouse listener for left and right click
-                button.addMouseListener(new MouseAdapter()
-                {
-                    @Override
-                    public void mousePressed(MouseEvent e)
-                    {
-                        if (SwingUtilities.isLeftMouseButton(e))
-                        {
-                            controller.handleCellClick(r, c);
-                        } else if (SwingUtilities.isRightMouseButton(e))
-                        {
-                            controller.handleCellRightClick(r, c);
-                        }
-
-                    }
-                });
+                button.setPreferredSize(cellSize);
+                button.setFont(CELL_FONT);
+                button.putClientProperty(CELL_INDEX, row * cols + col);
+                button.addMouseListener(clickHandler);
 
                 buttons[row][col] = button;
                 boardPanel.add(button);
             }
         }
 
-        add(boardPanel, BorderLayout.CENTER);
+        this.buttons = buttons;
+        boardPanel.revalidate();
+        updateBoard();
     }
 
     private void createResetButton()
     {
         resetButton = new JButton("New Game");
-        resetButton.setFont(new Font("Arial", Font.BOLD, 14));
+        resetButton.setFont(BUTTON_FONT);
         resetButton.addActionListener(e -> controller.newGame());
 
         autoFlagButton = new JButton("Auto Flag");
-        autoFlagButton.setFont(new Font("Arial", Font.BOLD, 14));
+        autoFlagButton.setFont(BUTTON_FONT);
         autoFlagButton.addActionListener(e -> controller.autoFlag());
 
         autoRevealButton = new JButton("Auto Reveal");
-        autoRevealButton.setFont(new Font("Arial", Font.BOLD, 14));
+        autoRevealButton.setFont(BUTTON_FONT);
         autoRevealButton.addActionListener(e -> controller.autoReveal());
 
+        autoMoveButton = new JButton("Auto Move");
+        autoMoveButton.setFont(BUTTON_FONT);
+        autoMoveButton.addActionListener(e -> controller.autoMove());
+
         JPanel topPanel = new JPanel();
         topPanel.add(resetButton);
         topPanel.add(autoFlagButton);
         topPanel.add(autoRevealButton);
+        topPanel.add(autoMoveButton);
         add(topPanel, BorderLayout.NORTH);
     }
 
-    // update the board display
+    // update the board display, nothing to do until the cell buttons exist
     public void updateBoard()
     {
+        if (buttons == null)
+        {
+            return;
+        }
         MinesweeperModel model = controller.getModel();
 
         for (int row = 0; row < model.getRows(); row++)
         {
             for (int col = 0; col < model.getCols(); col++)
             {
-                Cell cell = model.getCell(row, col);
-                JButton button = buttons[row][col];
+                updateCell(row, col);
+            }
+        }
+    }
 
-                if (cell.isRevealed())
-                {
-                    button.setEnabled(false);
-
-                    if (cell.isBomb())
-                    {
-                        button.setText("💣");
-                        button.setBackground(Color.RED);
-                    } else
-                    {
-                        int adjacent = cell.getAdjacentBombs();
-                        if (adjacent > 0)
-                        {
-                            button.setText(String.valueOf(adjacent));
-                            button.setForeground(getNumberColor(adjacent));
-                        } else
-                        {
-                            button.setText("");
-                        }
-                        button.setBackground(Color.LIGHT_GRAY);
-                    }
-                } else if (cell.isFlagged())
+    // update only the given cells (as row * cols + col)
+    public void updateCells(int[] changed)
+    {
+        if (buttons == null)
+        {
+            return;
+        }
+        int cols = controller.getModel().getCols();
+
+        for (int index : changed)
+        {
+            updateCell(index / cols, index % cols);
+        }
+    }
+
+    private void updateCell(int row, int col)
+    {
+        Cell cell = controller.getModel().getCell(row, col);
+        JButton button = buttons[row][col];
+
+        if (cell.isRevealed())
+        {
+            button.setEnabled(false);
+
+            if (cell.isBomb())
+            {
+                button.setText("💣");
+                button.setBackground(Color.RED);
+            } else
+            {
+                int adjacent = cell.getAdjacentBombs();
+                if (adjacent > 0)
                 {
-                    button.setText("🚩");
-                    button.setBackground(null);
+                    button.setText(String.valueOf(adjacent));
+                    button.setForeground(getNumberColor(adjacent));
                 } else
                 {
                     button.setText("");
-                    button.setEnabled(true);
-                    button.setBackground(null);
                 }
+                button.setBackground(Color.LIGHT_GRAY);
             }
+        } else if (cell.isFlagged())
+        {
+            button.setText("🚩");
+            button.setBackground(null);
+        } else
+        {
+            button.setText("");
+            button.setEnabled(true);
+            button.setBackground(null);
         }
     }
 
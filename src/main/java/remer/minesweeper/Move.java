@@ -0,0 +1,21 @@
+package remer.minesweeper;
+
+// one player action on a cell, for applying many at once with MinesweeperModel.applyMoves
+public record Move(Action action, int row, int col)
+{
+    public enum Action
+    {
+        REVEAL,
+        FLAG
+    }
+
+    public static Move reveal(int row, int col)
+    {
+        return new Move(Action.REVEAL, row, col);
+    }
+
+    public static Move flag(int row, int col)
+    {
+        return new Move(Action.FLAG, row, col);
+    }
+}
@@ -0,0 +1,130 @@
+package remer.minesweeper;
+
+import java.util.Arrays;
+
+// precomputed neighbours for every cell of a board shape, using flat indices (row * cols + col)
+// one table is built per (rows, cols) and shared by every board of that shape
+//
+// the neighbours of cell i are list[first[i]] up to (not including) list[first[i + 1]],
+// so looping over them needs no bounds checks and no "skip the cell itself" test
+// the 3x3 window around a cell is numbered 0 to 8 row by row, 4 being the cell itself
+public final class Neighbours
+{
+    // room for the giant 100x100 board plus a handful of common sizes
+    private static final ShapeCache<Neighbours> CACHE = new ShapeCache<>(1 << 15, Neighbours::new);
+
+    private final int rows;
+    private final int cols;
+    private final int[] first;
+    private final int[] list;
+    private final byte[] directions;
+    private final boolean[] interior;
+    private final int[] offsets;
+
+    // constructor
+    private Neighbours(int rows, int cols)
+    {
+        this.rows = rows;
+        this.cols = cols;
+        int size = rows * cols;
+
+        this.offsets = offsets(cols);
+        this.first = new int[size + 1];
+        this.interior = new boolean[size];
+
+        int[] built = new int[size * 8];
+        byte[] builtDirections = new byte[size * 8];
+        int count = 0;
+
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                int index = row * cols + col;
+                first[index] = count;
+                interior[index] = row > 0 && row < rows - 1 && col > 0 && col < cols - 1;
+
+                // check all 8 directions, keeping only the ones on the board
+                for (int i = -1; i <= 1; i++)
+                {
+                    for (int j = -1; j <= 1; j++)
+                    {
+                        int newRow = row + i;
+                        int newCol = col + j;
+
+                        if ((i != 0 || j != 0) && newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols)
+                        {
+                            builtDirections[count] = (byte) ((i + 1) * 3 + (j + 1));
+                            built[count++] = newRow * cols + newCol;
+                        }
+                    }
+                }
+            }
+        }
+        first[size] = count;
+        this.list = count == built.length ? built : Arrays.copyOf(built, count);
+        this.directions = Arrays.copyOf(builtDirections, count);
+    }
+
+    // the shared table for a board shape
+    public static Neighbours of(int rows, int cols)
+    {
+        return CACHE.get(rows, cols);
+    }
+
+    public int getRows()
+    {
+        return rows;
+    }
+
+    public int getCols()
+    {
+        return cols;
+    }
+
+    public int size()
+    {
+        return rows * cols;
+    }
+
+    // start positions in getList() for each cell, with one extra entry marking the end
+    public int[] getFirst()
+    {
+        return first;
+    }
+
+    // neighbour indices for all cells, one run per cell
+    public int[] getList()
+    {
+        return list;
+    }
+
+    // where each entry of getList() sits in the 3x3 window around its cell
+    public byte[] getDirections()
+    {
+        return directions;
+    }
+
+    // true if the cell has all 8 neighbours, so getOffsets() can be used directly
+    public boolean isInterior(int index)
+    {
+        return interior[index];
+    }
+
+    // distances from an interior cell to its 8 neighbours, in window order without the centre
+    public int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    // the same distances for any board that is cols wide, without building a table for it
+    public static int[] offsets(int cols)
+    {
+        return new int[] {-cols - 1, -cols, -cols + 1, -1, 1, cols - 1, cols, cols + 1};
+    }
+
+    public int count(int index)
+    {
+        return first[index + 1] - first[index];
+    }
+}
@@ -0,0 +1,74 @@
+package remer.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// measures how many boards per second NeuralNetwork.predict handles at different batch sizes
+// runs an untrained network unless a weights file is given: NeuralBenchmark [rows cols [weights]]
+public class NeuralBenchmark
+{
+    private static final int[] BATCHES = {1, 64, 1024};
+
+    public static void main(String[] args) throws IOException
+    {
+        int rows = args.length > 1 ? Integer.parseInt(args[0]) : 9;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        int cells = rows * cols;
+
+        NeuralNetwork network = args.length > 2
+                ? NeuralNetwork.load(Path.of(args[2]))
+                : NeuralNetwork.random(new int[] {cells, 256, 256, cells}, 42);
+
+        // a pile of half played games to score
+        MinesweeperModel[] games = new MinesweeperModel[BATCHES[BATCHES.length - 1]];
+        LogicPlayer player = new LogicPlayer(7);
+        for (int i = 0; i < games.length; i++)
+        {
+            games[i] = new MinesweeperModel(rows, cols, cells / 8);
+            for (int move = 0; move < 4 && !games[i].isGameOver(); move++)
+            {
+                player.move(games[i]);
+            }
+        }
+
+        StringBuilder layers = new StringBuilder();
+        for (int size : network.getSizes())
+        {
+            layers.append(layers.length() == 0 ? "" : "-").append(size);
+        }
+        System.out.printf("%dx%d boards, network %s%n", rows, cols, layers);
+        for (int batch : BATCHES)
+        {
+            float[] input = new float[batch * cells];
+            for (int b = 0; b < batch; b++)
+            {
+                double[] board = games[b].toInput();
+                for (int i = 0; i < cells; i++)
+                {
+                    input[b * cells + i] = (float) board[i];
+                }
+            }
+
+            // warm up, then time enough calls for at least a second
+            for (long end = System.nanoTime() + 500_000_000L; System.nanoTime() < end; )
+            {
+                network.predict(input, batch);
+            }
+
+            int calls = 0;
+            long boards = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do
+            {
+                network.predict(input, batch);
+                calls++;
+                boards += batch;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < 1_000_000_000L);
+
+            System.out.printf("batch %4d: %8.3f ms per call, %10.0f boards/s%n",
+                    batch, elapsed / 1e6 / calls, boards / (elapsed / 1e9));
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package remer.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// small fully connected network for scoring boards, CPU only and without dependencies
+// hidden layers use ReLU and the output layer uses a sigmoid, so each output is a 0-1 score
+//
+// the weights file is big endian:
+//   int magic "MSNN", int number of layers, the layer sizes (inputs first),
+//   then for each layer its weights (outputs x inputs, row by row) followed by its biases
+public class NeuralNetwork
+{
+    private static final int MAGIC = 0x4D534E4E;
+
+    // how much of each matrix is worked on at once, sized to stay in the L1/L2 caches
+    private static final int BLOCK_ROWS = 32;
+    private static final int BLOCK_INPUTS = 128;
+    private static final int BLOCK_OUTPUTS = 256;
+
+    private final int[] sizes;
+
+    // weights kept transposed (inputs x outputs), so the inner loop runs along the outputs
+    private final float[][] weights;
+    private final float[][] biases;
+
+    // constructor
+    private NeuralNetwork(int[] sizes, float[][] weights, float[][] biases)
+    {
+        this.sizes = sizes;
+        this.weights = weights;
+        this.biases = biases;
+    }
+
+    // read a network from a weights file
+    public static NeuralNetwork load(Path file) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException(file + " is not a weights file");
+            }
+
+            int layers = in.readInt();
+            if (layers < 1 || layers > 64)
+            {
+                throw new IOException(file + " has " + layers + " layers");
+            }
+
+            int[] sizes = new int[layers + 1];
+            for (int i = 0; i < sizes.length; i++)
+            {
+                sizes[i] = in.readInt();
+                if (sizes[i] < 1 || sizes[i] > 1 << 16)
+                {
+                    throw new IOException(file + " has a layer of size " + sizes[i]);
+                }
+            }
+
+            // check the sizes against the file before allocating anything, in longs since
+            // two layers of up to 65536 units can need more weights than an int can count
+            long expected = 8 + 4L * sizes.length;
+            for (int layer = 0; layer < layers; layer++)
+            {
+                long count = (long) sizes[layer] * sizes[layer + 1];
+                if (count > Integer.MAX_VALUE - 8)
+                {
+                    throw new IOException(file + " has a layer with " + count + " weights");
+                }
+                expected += 4 * (count + sizes[layer + 1]);
+            }
+            if (expected != Files.size(file))
+            {
+                throw new IOException(file + " should be " + expected + " bytes for its layer sizes");
+            }
+
+            float[][] weights = new float[layers][];
+            float[][] biases = new float[layers][];
+            for (int layer = 0; layer < layers; layer++)
+            {
+                int inputs = sizes[layer];
+                int outputs = sizes[layer + 1];
+                weights[layer] = new float[inputs * outputs];
+                biases[layer] = new float[outputs];
+
+                for (int o = 0; o < outputs; o++)
+                {
+                    for (int i = 0; i < inputs; i++)
+                    {
+                        weights[layer][i * outputs + o] = in.readFloat();
+                    }
+                }
+                for (int o = 0; o < outputs; o++)
+                {
+                    biases[layer][o] = in.readFloat();
+                }
+            }
+            return new NeuralNetwork(sizes, weights, biases);
+        }
+    }
+
+    // write the network in the format load reads
+    public void save(Path file) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(weights.length);
+            for (int size : sizes)
+            {
+                out.writeInt(size);
+            }
+
+            for (int layer = 0; layer < weights.length; layer++)
+            {
+                int inputs = sizes[layer];
+                int outputs = sizes[layer + 1];
+
+                for (int o = 0; o < outputs; o++)
+                {
+                    for (int i = 0; i < inputs; i++)
+                    {
+                        out.writeFloat(weights[layer][i * outputs + o]);
+                    }
+                }
+                for (int o = 0; o < outputs; o++)
+                {
+                    out.writeFloat(biases[layer][o]);
+                }
+            }
+        }
+    }
+
+    // an untrained network with random weights, for trying things out and for benchmarks
+    public static NeuralNetwork random(int[] sizes, long seed)
+    {
+        Random random = new Random(seed);
+        float[][] weights = new float[sizes.length - 1][];
+        float[][] biases = new float[sizes.length - 1][];
+
+        for (int layer = 0; layer < weights.length; layer++)
+        {
+            int inputs = sizes[layer];
+            weights[layer] = new float[inputs * sizes[layer + 1]];
+            biases[layer] = new float[sizes[layer + 1]];
+
+            // keep activations about the same size from layer to layer
+            float scale = (float) Math.sqrt(2.0 / inputs);
+            for (int i = 0; i < weights[layer].length; i++)
+            {
+                weights[layer][i] = (float) random.nextGaussian() * scale;
+            }
+        }
+        return new NeuralNetwork(sizes.clone(), weights, biases);
+    }
+
+    public int getInputSize()
+    {
+        return sizes[0];
+    }
+
+    public int getOutputSize()
+    {
+        return sizes[sizes.length - 1];
+    }
+
+    // the number of units in each layer, inputs first
+    public int[] getSizes()
+    {
+        return sizes.clone();
+    }
+
+    // run a batch of inputs, one after another in a flat array, and return the outputs the same way
+    public float[] predict(float[] input, int batch)
+    {
+        if (input.length != batch * getInputSize())
+        {
+            throw new IllegalArgumentException("expected " + batch + " x " + getInputSize() + " inputs");
+        }
+
+        float[] activations = input;
+        for (int layer = 0; layer < weights.length; layer++)
+        {
+            int outputs = sizes[layer + 1];
+            float[] next = new float[batch * outputs];
+
+            multiply(activations, weights[layer], biases[layer], next, batch, sizes[layer], outputs);
+
+            if (layer < weights.length - 1)
+            {
+                relu(next);
+            } else
+            {
+                sigmoid(next);
+            }
+            activations = next;
+        }
+        return activations;
+    }
+
+    // out = in x weights + bias, worked through in blocks so each block stays in cache
+    private static void multiply(float[] in, float[] weights, float[] bias, float[] out,
+                                 int batch, int inputs, int outputs)
+    {
+        for (int b = 0; b < batch; b++)
+        {
+            System.arraycopy(bias, 0, out, b * outputs, outputs);
+        }
+
+        for (int o0 = 0; o0 < outputs; o0 += BLOCK_OUTPUTS)
+        {
+            int o1 = Math.min(outputs, o0 + BLOCK_OUTPUTS);
+
+            for (int i0 = 0; i0 < inputs; i0 += BLOCK_INPUTS)
+            {
+                int i1 = Math.min(inputs, i0 + BLOCK_INPUTS);
+
+                for (int b0 = 0; b0 < batch; b0 += BLOCK_ROWS)
+                {
+                    int b1 = Math.min(batch, b0 + BLOCK_ROWS);
+
+                    int b = b0;
+
+                    // four boards at a time, so each weight loaded is used four times
+                    for (; b + 3 < b1; b += 4)
+                    {
+                        multiplyFour(in, weights, out, b, inputs, outputs, i0, i1, o0, o1);
+                    }
+
+                    for (; b < b1; b++)
+                    {
+                        int inRow = b * inputs;
+                        int outRow = b * outputs;
+
+                        for (int i = i0; i < i1; i++)
+                        {
+                            float value = in[inRow + i];
+
+                            // most board inputs are 0 (hidden cells), skip them
+                            if (value == 0f)
+                            {
+                                continue;
+                            }
+
+                            int weightRow = i * outputs;
+                            for (int o = o0; o < o1; o++)
+                            {
+                                out[outRow + o] += value * weights[weightRow + o];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void multiplyFour(float[] in, float[] weights, float[] out, int b,
+                                     int inputs, int outputs, int i0, int i1, int o0, int o1)
+    {
+        int out0 = b * outputs;
+        int out1 = out0 + outputs;
+        int out2 = out1 + outputs;
+        int out3 = out2 + outputs;
+
+        for (int i = i0; i < i1; i++)
+        {
+            float a0 = in[b * inputs + i];
+            float a1 = in[(b + 1) * inputs + i];
+            float a2 = in[(b + 2) * inputs + i];
+            float a3 = in[(b + 3) * inputs + i];
+
+            if (a0 == 0f && a1 == 0f && a2 == 0f && a3 == 0f)
+            {
+                continue;
+            }
+
+            int weightRow = i * outputs;
+            for (int o = o0; o < o1; o++)
+            {
+                float w = weights[weightRow + o];
+                out[out0 + o] += a0 * w;
+                out[out1 + o] += a1 * w;
+                out[out2 + o] += a2 * w;
+                out[out3 + o] += a3 * w;
+            }
+        }
+    }
+
+    private static void relu(float[] values)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = Math.max(0f, values[i]);
+        }
+    }
+
+    private static void sigmoid(float[] values)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = (float) (1.0 / (1.0 + Math.exp(-values[i])));
+        }
+    }
+}
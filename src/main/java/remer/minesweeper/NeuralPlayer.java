@@ -0,0 +1,98 @@
+package remer.minesweeper;
+
+// plays by opening the hidden cell a NeuralNetwork scores as least likely to be a bomb
+// the network takes MinesweeperModel.toInput and gives one bomb score per cell
+public class NeuralPlayer implements AutoPlayer
+{
+    private final NeuralNetwork network;
+
+    // constructor
+    public NeuralPlayer(NeuralNetwork network)
+    {
+        this.network = network;
+    }
+
+    @Override
+    public void move(MinesweeperModel model)
+    {
+        move(new MinesweeperModel[] {model});
+    }
+
+    // score every game in one batch, then make one move in each
+    @Override
+    public void move(MinesweeperModel[] models)
+    {
+        int size = network.getInputSize();
+        int batch = 0;
+        MinesweeperModel[] active = new MinesweeperModel[models.length];
+
+        for (MinesweeperModel model : models)
+        {
+            if (!model.isGameOver())
+            {
+                checkSize(model);
+                active[batch++] = model;
+            }
+        }
+        if (batch == 0)
+        {
+            return;
+        }
+
+        float[] scores = network.predict(inputs(active, batch), batch);
+
+        for (int b = 0; b < batch; b++)
+        {
+            MinesweeperModel model = active[b];
+            int best = -1;
+
+            for (int index = 0; index < size; index++)
+            {
+                Cell cell = model.getCell(index);
+                if (!cell.isRevealed() && !cell.isFlagged()
+                        && (best < 0 || scores[b * size + index] < scores[b * size + best]))
+                {
+                    best = index;
+                }
+            }
+
+            if (best >= 0)
+            {
+                model.revealCell(best / model.getCols(), best % model.getCols());
+            }
+        }
+    }
+
+    // the network's bomb score for every cell of a board
+    public float[] scores(MinesweeperModel model)
+    {
+        checkSize(model);
+        return network.predict(inputs(new MinesweeperModel[] {model}, 1), 1);
+    }
+
+    private float[] inputs(MinesweeperModel[] models, int batch)
+    {
+        int size = network.getInputSize();
+        float[] input = new float[batch * size];
+
+        for (int b = 0; b < batch; b++)
+        {
+            double[] board = models[b].toInput();
+            for (int index = 0; index < size; index++)
+            {
+                input[b * size + index] = (float) board[index];
+            }
+        }
+        return input;
+    }
+
+    private void checkSize(MinesweeperModel model)
+    {
+        int cells = model.getRows() * model.getCols();
+        if (cells != network.getInputSize() || cells != network.getOutputSize())
+        {
+            throw new IllegalArgumentException("network is for " + network.getInputSize()
+                    + " cells but the board has " + cells);
+        }
+    }
+}
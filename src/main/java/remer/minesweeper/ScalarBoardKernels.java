@@ -0,0 +1,46 @@
+package remer.minesweeper;
+
+// plain loops, used whenever the vector version is off or not available
+public class ScalarBoardKernels implements BoardKernels
+{
+    @Override
+    public void countAdjacent(byte[] bombs, int rows, int cols, byte[] counts)
+    {
+        Neighbours neighbours = Neighbours.of(rows, cols);
+        int[] first = neighbours.getFirst();
+        int[] list = neighbours.getList();
+
+        for (int index = 0; index < bombs.length; index++)
+        {
+            int count = 0;
+            for (int k = first[index], end = first[index + 1]; k < end; k++)
+            {
+                count += bombs[list[k]];
+            }
+            counts[index] = (byte) count;
+        }
+    }
+
+    @Override
+    public void encodeInput(Cell[] cells, double[] input)
+    {
+        for (int index = 0; index < cells.length; index++)
+        {
+            input[index] = encode(cells[index]);
+        }
+    }
+
+    // flagged is 1.0, revealed is (adjacent bombs + 1) * 0.1, hidden is 0
+    static double encode(Cell cell)
+    {
+        if (cell.isFlagged())
+        {
+            return 1.0;
+        }
+        if (cell.isRevealed())
+        {
+            return (cell.getAdjacentBombs() + 1) * 0.1;
+        }
+        return 0.0;
+    }
+}
@@ -0,0 +1,51 @@
+package remer.minesweeper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+// per board shape tables (see Neighbours and Zobrist), shared while their shape is in use
+// the cache is bounded by the total number of cells of the shapes it holds, dropping the least
+// recently used shapes first, so clients asking for many odd sizes can't fill the heap with tables;
+// a dropped table is built again the next time its shape comes up, and boards still using it keep it
+final class ShapeCache<T>
+{
+    private final long maxCells;
+    private final BiFunction<Integer, Integer, T> build;
+
+    // access ordered, so iteration starts at the least recently used shape
+    private final LinkedHashMap<Long, T> tables = new LinkedHashMap<>(16, 0.75f, true);
+    private long cells;
+
+    // constructor
+    ShapeCache(long maxCells, BiFunction<Integer, Integer, T> build)
+    {
+        this.maxCells = maxCells;
+        this.build = build;
+    }
+
+    synchronized T get(int rows, int cols)
+    {
+        long key = ((long) rows << 32) | cols;
+        T table = tables.get(key);
+        if (table != null)
+        {
+            return table;
+        }
+
+        table = build.apply(rows, cols);
+        tables.put(key, table);
+        cells += (long) rows * cols;
+
+        // drop the coldest shapes, but never the one just built
+        Iterator<Map.Entry<Long, T>> eldest = tables.entrySet().iterator();
+        while (cells > maxCells && tables.size() > 1)
+        {
+            long dropped = eldest.next().getKey();
+            eldest.remove();
+            cells -= (dropped >>> 32) * (dropped & 0xFFFFFFFFL);
+        }
+        return table;
+    }
+}
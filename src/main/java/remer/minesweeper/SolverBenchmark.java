@@ -0,0 +1,261 @@
+package remer.minesweeper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+// plays a fixed set of seeded games with each auto player and checks the results against a baseline file
+//
+// usage: SolverBenchmark <baseline file> [--update]
+// with --update the baseline is rewritten from this run, otherwise the run fails (exit code 1) when
+// win rate or cells inspected per move get worse than the baseline allows, moves per second drop
+// by more than the throughput tolerance (-Dbenchmark.throughputTolerance, default 0.5), or the p50 or
+// p99 move latency grows by more than the latency tolerance (-Dbenchmark.latencyTolerance, default 2.0,
+// loose because a single GC pause can move the p99 of a short run a long way)
+public class SolverBenchmark
+{
+    // a board size and how many seeded games to play on it
+    private static class Tier
+    {
+        private final String name;
+        private final int rows;
+        private final int cols;
+        private final int bombs;
+        private final int games;
+
+        private Tier(String name, int rows, int cols, int bombs, int games)
+        {
+            this.name = name;
+            this.rows = rows;
+            this.cols = cols;
+            this.bombs = bombs;
+            this.games = games;
+        }
+    }
+
+    private static final Tier[] TIERS = {
+        new Tier("beginner", 9, 9, 10, 500),
+        new Tier("intermediate", 16, 16, 40, 300),
+        new Tier("expert", 16, 30, 99, 200),
+        new Tier("giant", 100, 100, 1600, 10),
+    };
+
+    // win rate and cells per move come from seeded games, so they only change when the solver does
+    private static final double WIN_RATE_TOLERANCE = 0.005;
+    private static final double INSPECTED_TOLERANCE = 0.05;
+
+    // what one player did on one tier
+    private static class Result
+    {
+        private int wins;
+        private long moves;
+        private long nanos;
+        private long inspected;
+        private long[] latencies = new long[1024];
+
+        private void addLatency(long latency)
+        {
+            if (moves == latencies.length)
+            {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[(int) moves] = latency;
+        }
+
+        private double percentile(double fraction)
+        {
+            long[] sorted = Arrays.copyOf(latencies, (int) moves);
+            Arrays.sort(sorted);
+            return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+        }
+    }
+
+    private interface PlayerFactory
+    {
+        // a player for one game, or null if it can't play this tier
+        AutoPlayer create(Tier tier, long seed);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("usage: SolverBenchmark <baseline file> [--update]");
+            System.exit(2);
+        }
+        Path baselineFile = Path.of(args[0]);
+        boolean update = args.length > 1 && args[1].equals("--update");
+        double throughputTolerance = Double.parseDouble(System.getProperty("benchmark.throughputTolerance", "0.5"));
+        double latencyTolerance = Double.parseDouble(System.getProperty("benchmark.latencyTolerance", "2.0"));
+
+        Map<String, PlayerFactory> players = new LinkedHashMap<>();
+        players.put("logic", (tier, seed) -> new LogicPlayer(seed));
+
+        // the neural player only runs when a trained network is given, and only on boards its size
+        String weights = System.getProperty("minesweeper.weights");
+        if (weights != null)
+        {
+            NeuralNetwork network = NeuralNetwork.load(Path.of(weights));
+            NeuralPlayer neural = new NeuralPlayer(network);
+            int cells = network.getInputSize();
+            players.put("neural", (tier, seed) -> tier.rows * tier.cols == cells ? neural : null);
+        }
+
+        Properties current = new Properties();
+        System.out.printf("%-8s %-13s %8s %12s %14s %10s %10s%n",
+                "player", "tier", "win rate", "moves/s", "cells/move", "p50 us", "p99 us");
+
+        for (Map.Entry<String, PlayerFactory> player : players.entrySet())
+        {
+            for (Tier tier : TIERS)
+            {
+                Result result = run(tier, player.getValue());
+                if (result == null)
+                {
+                    continue;
+                }
+
+                double winRate = (double) result.wins / tier.games;
+                double movesPerSecond = result.moves / (result.nanos / 1e9);
+                double inspectedPerMove = (double) result.inspected / result.moves;
+                System.out.printf("%-8s %-13s %8.3f %12.0f %14.1f %10.1f %10.1f%n",
+                        player.getKey(), tier.name, winRate, movesPerSecond, inspectedPerMove,
+                        result.percentile(0.50) / 1e3, result.percentile(0.99) / 1e3);
+
+                String key = player.getKey() + "." + tier.name + ".";
+                current.setProperty(key + "winRate", String.format("%.4f", winRate));
+                current.setProperty(key + "movesPerSecond", String.format("%.0f", movesPerSecond));
+                current.setProperty(key + "cellsPerMove", String.format("%.2f", inspectedPerMove));
+                current.setProperty(key + "p50Micros", String.format("%.1f", result.percentile(0.50) / 1e3));
+                current.setProperty(key + "p99Micros", String.format("%.1f", result.percentile(0.99) / 1e3));
+            }
+        }
+        System.out.println(Deductions.cache());
+
+        if (update)
+        {
+            Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+            // sorted and without a timestamp, so a changed baseline diffs cleanly
+            try (Writer out = Files.newBufferedWriter(baselineFile))
+            {
+                out.write("# SolverBenchmark baseline, regenerate with: gradle benchmark -PupdateBaseline\n");
+                for (String key : new TreeSet<>(current.stringPropertyNames()))
+                {
+                    out.write(key + "=" + current.getProperty(key) + "\n");
+                }
+            }
+            System.out.println("baseline written to " + baselineFile);
+            return;
+        }
+
+        if (!Files.exists(baselineFile))
+        {
+            System.out.println("no baseline at " + baselineFile + ", run with --update to create one");
+            return;
+        }
+
+        Properties baseline = new Properties();
+        try (Reader in = Files.newBufferedReader(baselineFile))
+        {
+            baseline.load(in);
+        }
+
+        List<String> regressions = compare(baseline, current, throughputTolerance, latencyTolerance);
+        if (!regressions.isEmpty())
+        {
+            System.out.println("regressions against " + baselineFile + ":");
+            regressions.forEach(line -> System.out.println("  " + line));
+            System.exit(1);
+        }
+        System.out.println("no regressions against " + baselineFile);
+    }
+
+    // play every game of a tier with one player
+    private static Result run(Tier tier, PlayerFactory factory)
+    {
+        Result result = new Result();
+        int tierIndex = Arrays.asList(TIERS).indexOf(tier);
+
+        for (int game = 0; game < tier.games; game++)
+        {
+            long seed = tierIndex * 1_000_000L + game;
+            AutoPlayer player = factory.create(tier, seed);
+            if (player == null)
+            {
+                return null;
+            }
+
+            MinesweeperModel model = new MinesweeperModel(tier.rows, tier.cols, tier.bombs);
+            model.setSeed(seed);
+
+            // time every move the player makes
+            AutoPlayer timed = board ->
+            {
+                long inspected = board.getCellsInspected();
+                long start = System.nanoTime();
+                player.move(board);
+                long latency = System.nanoTime() - start;
+
+                result.addLatency(latency);
+                result.nanos += latency;
+                result.inspected += board.getCellsInspected() - inspected;
+                result.moves++;
+            };
+            timed.play(model);
+
+            if (model.isGameWon())
+            {
+                result.wins++;
+            }
+        }
+        return result;
+    }
+
+    private static List<String> compare(Properties baseline, Properties current,
+                                        double throughputTolerance, double latencyTolerance)
+    {
+        List<String> regressions = new ArrayList<>();
+
+        for (String key : current.stringPropertyNames())
+        {
+            String expected = baseline.getProperty(key);
+            if (expected == null)
+            {
+                continue;
+            }
+
+            double before = Double.parseDouble(expected);
+            double now = Double.parseDouble(current.getProperty(key));
+
+            boolean worse;
+            if (key.endsWith(".winRate"))
+            {
+                worse = now < before - WIN_RATE_TOLERANCE;
+            } else if (key.endsWith(".cellsPerMove"))
+            {
+                worse = now > before * (1 + INSPECTED_TOLERANCE);
+            } else if (key.endsWith("Micros"))
+            {
+                worse = now > before * (1 + latencyTolerance);
+            } else
+            {
+                worse = now < before * (1 - throughputTolerance);
+            }
+
+            if (worse)
+            {
+                regressions.add(key + ": " + expected + " -> " + current.getProperty(key));
+            }
+        }
+        return regressions;
+    }
+}
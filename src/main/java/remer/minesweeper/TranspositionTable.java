@@ -0,0 +1,116 @@
+package remer.minesweeper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// fixed size cache from 64 bit hashes to 63 bit results, safe to share between threads without locks
+//
+// each bucket holds two entries, the newest in the first slot; storing into a full bucket
+// drops the older entry, so memory stays bounded no matter how many hashes are seen
+// entries are stored as (hash ^ value, value), so an entry torn by two threads writing
+// at once no longer matches its hash and simply reads as a miss
+public class TranspositionTable
+{
+    public static final long MISS = -1L;
+
+    // set on every stored value so empty slots never match
+    private static final long PRESENT = 1L << 63;
+
+    private final long[] checks;
+    private final long[] values;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // constructor, capacity is rounded up to a power of two
+    public TranspositionTable(int capacity)
+    {
+        int buckets = Integer.highestOneBit(Math.max(2, capacity - 1) / 2) * 2;
+        this.checks = new long[buckets * 2];
+        this.values = new long[buckets * 2];
+        this.mask = buckets - 1;
+    }
+
+    private int bucket(long hash)
+    {
+        // mix the high bits in, so hashes that only differ in their high bits still spread out
+        return (int) ((hash ^ (hash >>> 32)) & mask) * 2;
+    }
+
+    // the value stored for a hash, or MISS
+    public long get(long hash)
+    {
+        int slot = bucket(hash);
+
+        for (int i = slot; i < slot + 2; i++)
+        {
+            long value = values[i];
+            if ((value & PRESENT) != 0 && (checks[i] ^ value) == hash)
+            {
+                hits.increment();
+                return value & ~PRESENT;
+            }
+        }
+
+        misses.increment();
+        return MISS;
+    }
+
+    // store a value (which must not use the top bit) for a hash
+    public void put(long hash, long value)
+    {
+        int slot = bucket(hash);
+        long stored = value | PRESENT;
+
+        // the older entry moves to the second slot unless it is the same hash being updated
+        long oldValue = values[slot];
+        long oldCheck = checks[slot];
+        if ((oldValue & PRESENT) != 0 && (oldCheck ^ oldValue) != hash)
+        {
+            long nextValue = values[slot + 1];
+            if ((nextValue & PRESENT) != 0 && (checks[slot + 1] ^ nextValue) != hash)
+            {
+                evictions.increment();
+            }
+            checks[slot + 1] = oldCheck;
+            values[slot + 1] = oldValue;
+        }
+
+        checks[slot] = hash ^ stored;
+        values[slot] = stored;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    public double getHitRate()
+    {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+
+    public int capacity()
+    {
+        return values.length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("TranspositionTable[hits=%d, misses=%d, hitRate=%.2f, evictions=%d]",
+                getHits(), getMisses(), getHitRate(), getEvictions());
+    }
+}
@@ -0,0 +1,137 @@
+package remer.minesweeper;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of the board kernels using the incubating Vector API
+// only loaded by BoardKernels when -Dminesweeper.vector=true and the JVM runs with
+// --add-modules jdk.incubator.vector, results are identical to ScalarBoardKernels
+public class VectorBoardKernels implements BoardKernels
+{
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    // 8 packed cells at a time, widened into however many double vectors that takes
+    private static final VectorSpecies<Byte> CELLS = ByteVector.SPECIES_64;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final int PARTS = CELLS.length() / DOUBLES.length();
+
+    // packing the cells into bytes first costs about as much as encoding them straight away,
+    // so encodeInput only pays off from around 128x128 boards; smaller ones use the scalar loop
+    private static final int MIN_ENCODE_CELLS = 1 << 14;
+
+    private final int minEncodeCells;
+
+    // constructor
+    public VectorBoardKernels()
+    {
+        this(MIN_ENCODE_CELLS);
+    }
+
+    // constructor with the smallest board encodeInput packs and vectorizes
+    VectorBoardKernels(int minEncodeCells)
+    {
+        this.minEncodeCells = minEncodeCells;
+    }
+
+    @Override
+    public void countAdjacent(byte[] bombs, int rows, int cols, byte[] counts)
+    {
+        // copy into a board with an empty border, so every cell has all 8 neighbours
+        int width = cols + 2;
+        byte[] padded = new byte[(rows + 2) * width];
+        for (int row = 0; row < rows; row++)
+        {
+            System.arraycopy(bombs, row * cols, padded, (row + 1) * width + 1, cols);
+        }
+
+        int[] offsets = Neighbours.offsets(width);
+        int bound = BYTES.loopBound(cols);
+
+        for (int row = 0; row < rows; row++)
+        {
+            int centre = (row + 1) * width + 1;
+            int out = row * cols;
+            int col = 0;
+
+            // add up the 8 shifted rows, a whole vector of cells at a time
+            for (; col < bound; col += BYTES.length())
+            {
+                ByteVector sum = ByteVector.zero(BYTES);
+                for (int offset : offsets)
+                {
+                    sum = sum.add(ByteVector.fromArray(BYTES, padded, centre + col + offset));
+                }
+                sum.intoArray(counts, out + col);
+            }
+
+            // cells left over at the end of the row
+            for (; col < cols; col++)
+            {
+                int count = 0;
+                for (int offset : offsets)
+                {
+                    count += padded[centre + col + offset];
+                }
+                counts[out + col] = (byte) count;
+            }
+        }
+    }
+
+    @Override
+    public void encodeInput(Cell[] cells, double[] input)
+    {
+        if (cells.length < minEncodeCells)
+        {
+            for (int index = 0; index < cells.length; index++)
+            {
+                input[index] = ScalarBoardKernels.encode(cells[index]);
+            }
+            return;
+        }
+
+        byte[] packed = new byte[cells.length];
+        for (int index = 0; index < cells.length; index++)
+        {
+            packed[index] = MinesweeperModel.pack(cells[index]);
+        }
+
+        int bound = CELLS.loopBound(packed.length);
+        int index = 0;
+
+        for (; index < bound; index += CELLS.length())
+        {
+            // packed as MinesweeperModel.writeTo does: bit 1 revealed, bit 2 flagged, bits 4-7 adjacent bombs
+            ByteVector packedCells = ByteVector.fromArray(CELLS, packed, index);
+            ByteVector adjacent = packedCells.lanewise(VectorOperators.LSHR, 4);
+            ByteVector revealed = packedCells.and((byte) 2);
+            ByteVector flagged = packedCells.and((byte) 4);
+
+            for (int part = 0; part < PARTS; part++)
+            {
+                DoubleVector count = widen(adjacent, part);
+                VectorMask<Double> isRevealed = widen(revealed, part).compare(VectorOperators.NE, 0.0);
+                VectorMask<Double> isFlagged = widen(flagged, part).compare(VectorOperators.NE, 0.0);
+
+                // same arithmetic as the scalar code so the results match exactly
+                DoubleVector value = DoubleVector.zero(DOUBLES)
+                        .blend(count.add(1.0).mul(0.1), isRevealed)
+                        .blend(1.0, isFlagged);
+                value.intoArray(input, index + part * DOUBLES.length());
+            }
+        }
+
+        for (; index < cells.length; index++)
+        {
+            input[index] = ScalarBoardKernels.encode(cells[index]);
+        }
+    }
+
+    // one slice of 8 bytes converted to doubles
+    private static DoubleVector widen(ByteVector bytes, int part)
+    {
+        return (DoubleVector) bytes.convertShape(VectorOperators.B2D, DOUBLES, part);
+    }
+}
@@ -0,0 +1,66 @@
+package remer.minesweeper;
+
+import java.util.SplittableRandom;
+
+// Zobrist hashing of what a player can see on the board
+// every (cell, visible state) pair gets a random 64 bit key and a board's hash is the XOR of its keys,
+// so changing one cell updates the hash in O(1) by XORing the old key out and the new key in
+// hidden cells have key 0, so a board where nothing is revealed or flagged hashes to 0
+public final class Zobrist
+{
+    // visible states: hidden, flagged, revealed with 0 to 8 adjacent bombs, revealed bomb
+    public static final int HIDDEN = 0;
+    public static final int FLAGGED = 1;
+    public static final int REVEALED_BOMB = 11;
+    public static final int STATES = 12;
+
+    // keys come from a seed made from the shape, so a dropped table is rebuilt with the same keys
+    private static final ShapeCache<Zobrist> CACHE = new ShapeCache<>(1 << 15, Zobrist::new);
+
+    private final long[] keys;
+
+    // constructor
+    private Zobrist(int rows, int cols)
+    {
+        SplittableRandom random = new SplittableRandom(((long) rows << 32) ^ cols ^ 0x2B0B_215CL);
+        keys = new long[rows * cols * STATES];
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = i % STATES == HIDDEN ? 0 : random.nextLong();
+        }
+    }
+
+    // the shared keys for a board shape
+    public static Zobrist of(int rows, int cols)
+    {
+        return CACHE.get(rows, cols);
+    }
+
+    // what a player sees in a cell
+    public static int state(Cell cell)
+    {
+        if (cell.isRevealed())
+        {
+            return cell.isBomb() ? REVEALED_BOMB : 2 + cell.getAdjacentBombs();
+        }
+        return cell.isFlagged() ? FLAGGED : HIDDEN;
+    }
+
+    // key for a cell at a flat index being in a visible state
+    public long key(int index, int state)
+    {
+        return keys[index * STATES + state];
+    }
+
+    // hash of a whole board, for when it can't be updated incrementally
+    public long hash(Cell[] cells)
+    {
+        long hash = 0;
+        for (int index = 0; index < cells.length; index++)
+        {
+            hash ^= key(index, state(cells[index]));
+        }
+        return hash;
+    }
+}
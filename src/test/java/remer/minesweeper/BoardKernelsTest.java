@@ -0,0 +1,79 @@
+package remer.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+// the test task runs with the vector module and -Dminesweeper.vector=true
+class BoardKernelsTest
+{
+    private final BoardKernels scalar = new ScalarBoardKernels();
+    private final BoardKernels vector = new VectorBoardKernels();
+
+    // vectorizes encodeInput for boards of every size, not just big ones
+    private final BoardKernels vectorAlways = new VectorBoardKernels(0);
+
+    @Test
+    void vectorKernelsAreUsedWhenTurnedOn()
+    {
+        assertInstanceOf(VectorBoardKernels.class, BoardKernels.get());
+    }
+
+    @Test
+    void countAdjacentMatchesScalar()
+    {
+        Random random = new Random(1);
+
+        // sizes around and between vector lengths, including single rows and columns
+        for (int board = 0; board < 2000; board++)
+        {
+            int rows = 1 + random.nextInt(40);
+            int cols = 1 + random.nextInt(80);
+            double density = random.nextDouble();
+
+            byte[] bombs = new byte[rows * cols];
+            for (int index = 0; index < bombs.length; index++)
+            {
+                bombs[index] = (byte) (random.nextDouble() < density ? 1 : 0);
+            }
+
+            byte[] expected = new byte[bombs.length];
+            byte[] actual = new byte[bombs.length];
+            scalar.countAdjacent(bombs, rows, cols, expected);
+            vector.countAdjacent(bombs, rows, cols, actual);
+            assertArrayEquals(expected, actual, rows + "x" + cols);
+        }
+    }
+
+    @Test
+    void encodeInputMatchesScalar()
+    {
+        Random random = new Random(2);
+
+        for (int board = 0; board < 2000; board++)
+        {
+            // a few boards big enough for the default vector kernels to vectorize
+            Cell[] cells = new Cell[board % 100 == 0 ? 20000 + random.nextInt(50) : 1 + random.nextInt(3000)];
+            for (int index = 0; index < cells.length; index++)
+            {
+                cells[index] = new Cell();
+                cells[index].setBomb(random.nextBoolean());
+                cells[index].setRevealed(random.nextBoolean());
+                cells[index].setFlagged(random.nextBoolean());
+                cells[index].setAdjacentBombs(random.nextInt(9));
+            }
+
+            double[] expected = new double[cells.length];
+            double[] actual = new double[cells.length];
+            double[] always = new double[cells.length];
+            scalar.encodeInput(cells, expected);
+            vector.encodeInput(cells, actual);
+            vectorAlways.encodeInput(cells, always);
+            assertArrayEquals(expected, actual);
+            assertArrayEquals(expected, always);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package remer.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServerTest
+{
+    private final GameServer server = new GameServer(0);
+
+    // the games of one connection
+    private final Set<Long> games = new HashSet<>();
+
+    private String newGame(String size)
+    {
+        String response = server.handle(games, "NEW " + size);
+        assertTrue(response.startsWith("OK "), response);
+        return response.substring(3);
+    }
+
+    @Test
+    void movesOffTheBoardAreErrors()
+    {
+        // every cell but one is a bomb, so the first real click only wins if the errors didn't use it up
+        String id = newGame("9 9 80");
+
+        assertTrue(server.handle(games, "OPEN " + id + " 100 100").startsWith("ERR "));
+        assertTrue(server.handle(games, "FLAG " + id + " -1 0").startsWith("ERR "));
+        assertTrue(server.handle(games, "BATCH " + id + " F 0 0 O 9 0").startsWith("ERR "));
+
+        assertEquals("DIFF W 1 4,4,8", server.handle(games, "OPEN " + id + " 4 4"));
+    }
+
+    @Test
+    void gamesBelongToTheirConnection()
+    {
+        String id = newGame("9 9 10");
+        Set<Long> other = new HashSet<>();
+
+        assertEquals("ERR no such game", server.handle(other, "OPEN " + id + " 4 4"));
+        assertEquals("ERR no such game", server.handle(other, "BOARD " + id));
+        assertEquals("ERR no such game", server.handle(other, "END " + id));
+
+        assertEquals("OK " + id, server.handle(games, "END " + id));
+        assertTrue(games.isEmpty());
+    }
+
+    @Test
+    void oneConnectionCanOnlyHaveSoManyGames()
+    {
+        String first = newGame("9 9 10");
+        while (server.handle(games, "NEW 9 9 10").startsWith("OK "))
+        {
+            assertTrue(games.size() <= 64);
+        }
+        assertEquals("ERR too many games on this connection", server.handle(games, "NEW 9 9 10"));
+
+        // ending one makes room for another
+        server.handle(games, "END " + first);
+        newGame("9 9 10");
+    }
+}
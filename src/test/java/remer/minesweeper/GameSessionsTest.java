@@ -0,0 +1,58 @@
+package remer.minesweeper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSessionsTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void hibernatedGamesCountTowardsTheCap()
+    {
+        // a budget this small sends every game but the newest to disk
+        GameSessions sessions = new GameSessions(null, 1, directory, 3);
+        long first = sessions.create(9, 9, 10);
+        sessions.create(9, 9, 10);
+        sessions.create(9, 9, 10);
+        assertEquals(2, sessions.getHibernatedCount());
+
+        assertThrows(IllegalStateException.class, () -> sessions.create(9, 9, 10));
+
+        sessions.remove(first);
+        sessions.create(9, 9, 10);
+        assertEquals(3, sessions.size());
+        sessions.close();
+    }
+
+    @Test
+    void closeRemovesTheFilesAndOnlyATemporaryDirectory() throws Exception
+    {
+        GameSessions given = new GameSessions(null, 1, directory);
+        given.create(9, 9, 10);
+        given.create(9, 9, 10);
+        given.close();
+        assertTrue(Files.isDirectory(directory));
+        try (Stream<Path> files = Files.list(directory))
+        {
+            assertEquals(0, files.count());
+        }
+
+        GameSessions temporary = new GameSessions(null, 1);
+        temporary.create(9, 9, 10);
+        temporary.create(9, 9, 10);
+        assertTrue(Files.isDirectory(temporary.getDirectory()));
+        temporary.close();
+        assertFalse(Files.exists(temporary.getDirectory()));
+    }
+}
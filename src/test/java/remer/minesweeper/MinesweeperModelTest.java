@@ -0,0 +1,248 @@
+package remer.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinesweeperModelTest
+{
+    // the board as the model holds it, read back through getCell
+    private static Cell[] cells(MinesweeperModel model)
+    {
+        Cell[] cells = new Cell[model.getRows() * model.getCols()];
+        for (int index = 0; index < cells.length; index++)
+        {
+            cells[index] = model.getCell(index);
+        }
+        return cells;
+    }
+
+    private static void assertHashMatches(MinesweeperModel model)
+    {
+        long full = Zobrist.of(model.getRows(), model.getCols()).hash(cells(model));
+        assertEquals(full, model.getBoardHash());
+    }
+
+    private static int revealedCount(MinesweeperModel model)
+    {
+        int revealed = 0;
+        for (Cell cell : cells(model))
+        {
+            if (cell.isRevealed())
+            {
+                revealed++;
+            }
+        }
+        return revealed;
+    }
+
+    @Test
+    void boardHashFollowsRevealsAndCascades()
+    {
+        // one bomb, so opening a corner cascades over most of the board
+        MinesweeperModel model = new MinesweeperModel(9, 9, 1);
+        model.setSeed(7);
+        assertEquals(0, model.getBoardHash());
+
+        model.revealCell(0, 0);
+        assertHashMatches(model);
+        assertTrue(revealedCount(model) > 1);
+    }
+
+    @Test
+    void boardHashFollowsFlags()
+    {
+        MinesweeperModel model = new MinesweeperModel(9, 9, 10);
+        model.setSeed(11);
+        model.revealCell(4, 4);
+        long revealed = model.getBoardHash();
+
+        for (int index = 0; index < 81; index++)
+        {
+            if (!model.getCell(index).isRevealed())
+            {
+                model.toggleFlag(index / 9, index % 9);
+                assertHashMatches(model);
+            }
+        }
+
+        // taking every flag off again gives back the hash from before
+        for (int index = 0; index < 81; index++)
+        {
+            if (model.getCell(index).isFlagged())
+            {
+                model.toggleFlag(index / 9, index % 9);
+            }
+        }
+        assertHashMatches(model);
+        assertEquals(revealed, model.getBoardHash());
+    }
+
+    @Test
+    void boardHashFollowsLoss()
+    {
+        MinesweeperModel model = new MinesweeperModel(9, 9, 10);
+        model.setSeed(3);
+        model.revealCell(4, 4);
+
+        // flag one bomb so the loss reveals a flagged bomb too, then open another one
+        int flagged = -1;
+        for (int index = 0; index < 81; index++)
+        {
+            if (!model.getCell(index).isBomb())
+            {
+                continue;
+            }
+            if (flagged < 0)
+            {
+                flagged = index;
+                model.toggleFlag(index / 9, index % 9);
+            } else
+            {
+                model.revealCell(index / 9, index % 9);
+                break;
+            }
+        }
+
+        assertTrue(model.isGameOver());
+        assertHashMatches(model);
+    }
+
+    @Test
+    void boardHashFollowsPlayedGames()
+    {
+        for (long seed = 0; seed < 50; seed++)
+        {
+            MinesweeperModel model = new MinesweeperModel(16, 16, 40);
+            model.setSeed(seed);
+            AutoPlayer player = new LogicPlayer(seed);
+
+            for (int move = 0; move < 512 && !model.isGameOver(); move++)
+            {
+                player.move(model);
+                assertHashMatches(model);
+            }
+        }
+    }
+
+    @Test
+    void applyMovesReportsOnlyWhatTheBatchChanged()
+    {
+        MinesweeperModel model = new MinesweeperModel(9, 9, 10);
+        model.setSeed(5);
+
+        // single moves made outside a batch don't show up in the next one
+        model.toggleFlag(8, 8);
+        assertArrayEquals(new int[] {0}, model.applyMoves(new Move[] {Move.flag(0, 0)}));
+
+        // flagging and unflagging in one batch leaves the cell as it was
+        assertArrayEquals(new int[0], model.applyMoves(new Move[] {Move.flag(1, 1), Move.flag(1, 1)}));
+        Move[] moves = {Move.flag(0, 2), Move.flag(0, 1), Move.flag(0, 2), Move.flag(0, 2)};
+        assertArrayEquals(new int[] {1, 2}, model.applyMoves(moves));
+    }
+
+    private static MinesweeperModel roundTrip(MinesweeperModel model) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        model.writeTo(new DataOutputStream(bytes));
+        return MinesweeperModel.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), null);
+    }
+
+    private static void assertSameGame(MinesweeperModel expected, MinesweeperModel actual)
+    {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getCols(), actual.getCols());
+        assertEquals(expected.getNumBombs(), actual.getNumBombs());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        assertEquals(expected.isGameWon(), actual.isGameWon());
+        assertEquals(expected.getBoardHash(), actual.getBoardHash());
+
+        for (int index = 0; index < expected.getRows() * expected.getCols(); index++)
+        {
+            Cell want = expected.getCell(index);
+            Cell got = actual.getCell(index);
+            assertEquals(want.isBomb(), got.isBomb());
+            assertEquals(want.isRevealed(), got.isRevealed());
+            assertEquals(want.isFlagged(), got.isFlagged());
+            assertEquals(want.getAdjacentBombs(), got.getAdjacentBombs());
+        }
+    }
+
+    @Test
+    void writeToAndReadFromKeepAGameInProgress() throws IOException
+    {
+        MinesweeperModel model = new MinesweeperModel(16, 30, 99);
+        model.setSeed(21);
+        new LogicPlayer(21).move(model);
+        model.autoFlag();
+        model.toggleFlag(0, 0);
+
+        MinesweeperModel copy = roundTrip(model);
+        assertSameGame(model, copy);
+
+        // both play on the same way, including the win check that depends on the restored counts
+        new LogicPlayer(4).play(model);
+        new LogicPlayer(4).play(copy);
+        assertSameGame(model, copy);
+    }
+
+    @Test
+    void writeToAndReadFromKeepAnUnclickedPooledBoard() throws Exception
+    {
+        BoardPool pool = new BoardPool(1);
+        pool.prefill(9, 9, 10);
+        for (int wait = 0; wait < 500 && pool.available(9, 9, 10) == 0; wait++)
+        {
+            Thread.sleep(10);
+        }
+
+        MinesweeperModel model = new MinesweeperModel(9, 9, 10, pool);
+        pool.shutdown();
+
+        // the bombs are already placed on a pooled board, before the first click
+        int bomb = -1;
+        for (int index = 0; index < 81; index++)
+        {
+            if (model.getCell(index).isBomb())
+            {
+                bomb = index;
+            }
+        }
+        assertTrue(bomb >= 0);
+
+        MinesweeperModel copy = roundTrip(model);
+        assertSameGame(model, copy);
+
+        // a first click on a bomb moves it, the same way on both when seeded alike
+        model.setSeed(8);
+        copy.setSeed(8);
+        model.revealCell(bomb / 9, bomb % 9);
+        copy.revealCell(bomb / 9, bomb % 9);
+        assertFalse(copy.getCell(bomb).isBomb());
+        assertSameGame(model, copy);
+    }
+
+    @Test
+    void clickOffTheBoardKeepsFirstClickSafety()
+    {
+        // every cell but one is a bomb, so only a protected first click can find the safe one
+        MinesweeperModel model = new MinesweeperModel(9, 9, 80);
+        model.setSeed(1);
+
+        model.revealCell(100, 100);
+        model.revealCell(-1, 0);
+        assertEquals(0, model.getBoardHash());
+
+        model.revealCell(4, 4);
+        assertTrue(model.isGameWon());
+    }
+}
@@ -0,0 +1,145 @@
+package remer.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NeighboursTest
+{
+    // single cells, single rows and columns, small boards and the usual sizes
+    private static final int[][] SHAPES = {
+            {1, 1}, {1, 2}, {1, 9}, {2, 1}, {9, 1}, {2, 2}, {2, 7}, {3, 3}, {9, 9}, {16, 30}, {30, 16}};
+
+    @Test
+    void tablesMatchAScanOfAllEightDirections()
+    {
+        for (int[] shape : SHAPES)
+        {
+            int rows = shape[0];
+            int cols = shape[1];
+            Neighbours neighbours = Neighbours.of(rows, cols);
+            String name = rows + "x" + cols;
+
+            for (int row = 0; row < rows; row++)
+            {
+                for (int col = 0; col < cols; col++)
+                {
+                    int index = row * cols + col;
+                    int k = neighbours.getFirst()[index];
+                    int found = 0;
+
+                    // window order, row by row, skipping the cell itself
+                    for (int window = 0; window < 9; window++)
+                    {
+                        int r = row + window / 3 - 1;
+                        int c = col + window % 3 - 1;
+                        if (window == 4 || r < 0 || r >= rows || c < 0 || c >= cols)
+                        {
+                            continue;
+                        }
+                        assertEquals(r * cols + c, neighbours.getList()[k], name + " cell " + index);
+                        assertEquals(window, neighbours.getDirections()[k], name + " cell " + index);
+                        k++;
+                        found++;
+                    }
+
+                    assertEquals(neighbours.getFirst()[index + 1], k, name + " cell " + index);
+                    assertEquals(found, neighbours.count(index));
+                    assertEquals(found == 8, neighbours.isInterior(index), name + " cell " + index);
+                }
+            }
+            assertEquals(rows * cols, neighbours.size());
+        }
+    }
+
+    @Test
+    void interiorOffsetsMatchTheTable()
+    {
+        Neighbours neighbours = Neighbours.of(9, 11);
+        int[] offsets = neighbours.getOffsets();
+        assertArrayEquals(offsets, Neighbours.offsets(11));
+
+        for (int index = 0; index < neighbours.size(); index++)
+        {
+            if (!neighbours.isInterior(index))
+            {
+                continue;
+            }
+            int first = neighbours.getFirst()[index];
+            for (int k = 0; k < 8; k++)
+            {
+                assertEquals(neighbours.getList()[first + k], index + offsets[k]);
+            }
+        }
+    }
+
+    // what deduce should give, worked out from a plain scan of the window
+    private static long expectedDeduction(Cell[] cells, int rows, int cols, int index)
+    {
+        int flagged = 0;
+        int hiddenCount = 0;
+        int hidden = 0;
+        for (int window = 0; window < 9; window++)
+        {
+            int r = index / cols + window / 3 - 1;
+            int c = index % cols + window % 3 - 1;
+            if (window == 4 || r < 0 || r >= rows || c < 0 || c >= cols)
+            {
+                continue;
+            }
+            Cell neighbour = cells[r * cols + c];
+            if (neighbour.isFlagged())
+            {
+                flagged++;
+            } else if (!neighbour.isRevealed())
+            {
+                hiddenCount++;
+                hidden |= 1 << window;
+            }
+        }
+
+        int number = cells[index].getAdjacentBombs();
+        int bombs = flagged + hiddenCount == number ? hidden : 0;
+        int safe = flagged == number ? hidden : 0;
+        float chance = hiddenCount == 0 ? 0f : Math.max(0f, Math.min(1f, (number - flagged) / (float) hiddenCount));
+        return bombs | ((long) safe << 16) | ((long) Float.floatToIntBits(chance) << 32);
+    }
+
+    @Test
+    void deduceGivesTheSameOnInteriorAndEdgeCells()
+    {
+        Random random = new Random(3);
+        for (int[] shape : SHAPES)
+        {
+            int rows = shape[0];
+            int cols = shape[1];
+            Neighbours neighbours = Neighbours.of(rows, cols);
+
+            for (int board = 0; board < 200; board++)
+            {
+                Cell[] cells = new Cell[rows * cols];
+                for (int index = 0; index < cells.length; index++)
+                {
+                    cells[index] = new Cell();
+                    int state = random.nextInt(3);
+                    cells[index].setRevealed(state == 1);
+                    cells[index].setFlagged(state == 2);
+                    cells[index].setAdjacentBombs(random.nextInt(9));
+                }
+
+                boolean sawInterior = false;
+                for (int index = 0; index < cells.length; index++)
+                {
+                    sawInterior |= neighbours.isInterior(index);
+                    assertEquals(expectedDeduction(cells, rows, cols, index), Deductions.deduce(cells, neighbours, index),
+                            rows + "x" + cols + " cell " + index);
+                }
+                assertTrue(sawInterior || rows < 3 || cols < 3);
+            }
+        }
+    }
+}
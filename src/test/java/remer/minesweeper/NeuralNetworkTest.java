@@ -0,0 +1,155 @@
+package remer.minesweeper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NeuralNetworkTest
+{
+    @TempDir
+    Path directory;
+
+    // the layers as the weights file has them: weights[layer][output][input], then the biases
+    private float[][][] weights;
+    private float[][] biases;
+
+    private void read(Path file, int[] sizes) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file)))
+        {
+            in.skipNBytes(8 + 4L * sizes.length);
+            weights = new float[sizes.length - 1][][];
+            biases = new float[sizes.length - 1][];
+            for (int layer = 0; layer < weights.length; layer++)
+            {
+                weights[layer] = new float[sizes[layer + 1]][sizes[layer]];
+                biases[layer] = new float[sizes[layer + 1]];
+                for (float[] row : weights[layer])
+                {
+                    for (int i = 0; i < row.length; i++)
+                    {
+                        row[i] = in.readFloat();
+                    }
+                }
+                for (int o = 0; o < biases[layer].length; o++)
+                {
+                    biases[layer][o] = in.readFloat();
+                }
+            }
+        }
+    }
+
+    // the plain textbook loops, adding up in the same order as the blocked ones
+    private float[] naivePredict(float[] input, int batch, int[] sizes)
+    {
+        float[] activations = input;
+        for (int layer = 0; layer < weights.length; layer++)
+        {
+            int inputs = sizes[layer];
+            int outputs = sizes[layer + 1];
+            float[] next = new float[batch * outputs];
+
+            for (int b = 0; b < batch; b++)
+            {
+                for (int o = 0; o < outputs; o++)
+                {
+                    float sum = biases[layer][o];
+                    for (int i = 0; i < inputs; i++)
+                    {
+                        sum += activations[b * inputs + i] * weights[layer][o][i];
+                    }
+                    next[b * outputs + o] = layer < weights.length - 1
+                            ? Math.max(0f, sum)
+                            : (float) (1.0 / (1.0 + Math.exp(-sum)));
+                }
+            }
+            activations = next;
+        }
+        return activations;
+    }
+
+    @Test
+    void blockedPredictMatchesNaiveLoops() throws IOException
+    {
+        // sizes just past the block edges (128 inputs, 256 outputs, 32 boards) and a batch that isn't a multiple of 4
+        int[] sizes = {300, 257, 130, 300};
+        int batch = 37;
+        NeuralNetwork network = NeuralNetwork.random(sizes, 5);
+        Path file = directory.resolve("net.bin");
+        network.save(file);
+        read(file, sizes);
+
+        // mostly zeros like a real board, with one group of four boards all zero
+        Random random = new Random(6);
+        float[] input = new float[batch * sizes[0]];
+        for (int index = 0; index < input.length; index++)
+        {
+            boolean quietBoards = index >= 4 * sizes[0] && index < 8 * sizes[0];
+            input[index] = quietBoards || random.nextInt(3) == 0 ? 0f : random.nextFloat();
+        }
+
+        assertArrayEquals(naivePredict(input, batch, sizes), network.predict(input, batch));
+    }
+
+    @Test
+    void saveAndLoadKeepTheNetwork() throws IOException
+    {
+        int[] sizes = {81, 40, 81};
+        NeuralNetwork network = NeuralNetwork.random(sizes, 9);
+        Path file = directory.resolve("net.bin");
+        network.save(file);
+        NeuralNetwork loaded = NeuralNetwork.load(file);
+
+        assertArrayEquals(sizes, loaded.getSizes());
+        float[] input = new float[3 * 81];
+        Arrays.fill(input, 0.3f);
+        assertArrayEquals(network.predict(input, 3), loaded.predict(input, 3));
+
+        // saving again gives the same bytes
+        Path again = directory.resolve("again.bin");
+        loaded.save(again);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(again));
+    }
+
+    @Test
+    void loadRejectsLayersTooBigToIndex() throws IOException
+    {
+        // 65536 x 65536 weights is past what an int can index, only the header is there
+        Path file = directory.resolve("huge.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file)))
+        {
+            out.writeInt(0x4D534E4E);
+            out.writeInt(1);
+            out.writeInt(1 << 16);
+            out.writeInt(1 << 16);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> NeuralNetwork.load(file));
+        assertTrue(e.getMessage().contains("weights"), e.getMessage());
+    }
+
+    @Test
+    void loadRejectsFilesOfTheWrongSize() throws IOException
+    {
+        Path file = directory.resolve("net.bin");
+        NeuralNetwork.random(new int[] {9, 4, 9}, 1).save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> NeuralNetwork.load(file));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length + 4));
+        assertThrows(IOException.class, () -> NeuralNetwork.load(file));
+    }
+}